@@ -0,0 +1,69 @@
+package benchmark;
+
+import dao.TaskDao;
+import model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskDao整文件保存和加载的基准测试，每次调用都是完整的一次I/O，按单次耗时统计
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TaskDaoBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int taskCount;
+
+    private Path saveDir;
+    private Path loadDir;
+    private List<Task> tasks;
+    private TaskDao saveDao;
+    private TaskDao loadDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        tasks = TaskDataGenerator.generate(taskCount);
+        saveDir = Files.createTempDirectory("todo-bench-save");
+        loadDir = Files.createTempDirectory("todo-bench-load");
+        saveDao = new TaskDao(saveDir);
+        loadDao = new TaskDao(loadDir);
+        loadDao.saveTasks(tasks, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        TaskDataGenerator.deleteRecursively(saveDir);
+        TaskDataGenerator.deleteRecursively(loadDir);
+    }
+
+    @Benchmark
+    public void saveTasks() {
+        saveDao.saveTasks(tasks, false);
+    }
+
+    @Benchmark
+    public List<Task> loadTasks() {
+        return loadDao.loadTasks();
+    }
+}
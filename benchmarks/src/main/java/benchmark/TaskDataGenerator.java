@@ -0,0 +1,48 @@
+package benchmark;
+
+import dao.TaskDao;
+import model.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * TaskDataGenerator类 - 生成基准测试用的任务数据
+ * 三分之二已完成，优先级轮流分配，每五个任务有一个截止时间
+ */
+final class TaskDataGenerator {
+    private TaskDataGenerator() {
+    }
+
+    static List<Task> generate(int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        LocalDateTime base = LocalDateTime.now().minusDays(30);
+        Task.Priority[] priorities = Task.Priority.values();
+        for (int i = 0; i < count; i++) {
+            LocalDateTime dueDate = i % 5 == 0 ? base.plusHours(i % 1440) : null;
+            tasks.add(new Task(UUID.randomUUID().toString(), "任务 " + i, "基准测试数据 " + i,
+                    i % 3 != 0, base.plusSeconds(i), dueDate, priorities[i % priorities.length]));
+        }
+        return tasks;
+    }
+
+    /**
+     * 在dataDir下写入含count个任务的 tasks.json
+     */
+    static void writeTasks(Path dataDir, int count) {
+        new TaskDao(dataDir).saveTasks(generate(count), false);
+    }
+
+    static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted((a, b) -> b.getNameCount() - a.getNameCount())
+                    .forEach(path -> path.toFile().delete());
+        }
+    }
+}
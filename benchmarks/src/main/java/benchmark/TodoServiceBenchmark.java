@@ -0,0 +1,110 @@
+package benchmark;
+
+import dao.TaskDao;
+import model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import service.TaskQuery;
+import service.TodoService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TodoService热点路径的基准测试
+ * 保存策略设为长间隔且不调用start()，只测内存中的操作，不把保存耗时算进去
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dtodo.save.policy=interval", "-Dtodo.save.intervalMillis=3600000"})
+public class TodoServiceBenchmark {
+    private static final int PREFIX_SAMPLES = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    private int taskCount;
+
+    private Path dataDir;
+    private TodoService service;
+    private String[] prefixes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("todo-bench");
+        TaskDataGenerator.writeTasks(dataDir, taskCount);
+        service = new TodoService(new TaskDao(dataDir));
+
+        // 控制台按ID前8位查找任务
+        List<Task> tasks = service.getAllTasks();
+        prefixes = new String[PREFIX_SAMPLES];
+        for (int i = 0; i < PREFIX_SAMPLES; i++) {
+            prefixes[i] = tasks.get((int) ((long) i * tasks.size() / PREFIX_SAMPLES)).getId().substring(0, 8);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        service.shutdown();  // 先关闭存储再删数据目录
+        TaskDataGenerator.deleteRecursively(dataDir);
+    }
+
+    /**
+     * addTask 每次调用后删掉新加的任务，任务数一直是 taskCount
+     */
+    @State(Scope.Thread)
+    public static class AddedTask {
+        private Task task;
+
+        @TearDown(Level.Invocation)
+        public void delete(TodoServiceBenchmark benchmark) {
+            if (task != null) {
+                benchmark.service.deleteTask(task.getId());
+                task = null;
+            }
+        }
+    }
+
+    @Benchmark
+    public Task addTask(AddedTask added) {
+        added.task = service.addTask("新任务", "描述");
+        return added.task;
+    }
+
+    @Benchmark
+    public Optional<Task> findTaskByPrefix() {
+        return service.findTaskById(prefixes[next++ & (PREFIX_SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public List<Task> getIncompleteTasks() {
+        return service.getIncompleteTasks();
+    }
+
+    @Benchmark
+    public List<Task> mostUrgentTop20() {
+        return service.query(TaskQuery.mostUrgent(20));
+    }
+
+    @Benchmark
+    public String getStatistics() {
+        return service.getStatistics();
+    }
+}
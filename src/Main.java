@@ -1,11 +1,147 @@
+import dao.TaskRecordFormat;
+import service.ReplicationFollower;
+import service.ReplicationPrimary;
+import service.TodoService;
+import service.TodoStoreManager;
+import service.TransferSummary;
+import ui.BatchRunner;
 import ui.ConsoleUI;
+import ui.HttpApiServer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 /**
  * TodoList 应用程序入口
+ *
+ * 不带参数时启动交互界面；批处理模式：
+ *   --batch 文件      执行脚本文件
+ *   --batch [-]       从标准输入读取脚本
+ *   --exec 命令...    每个参数一条命令
+ * HTTP服务模式：
+ *   --server [端口]   启动JSON HTTP接口，默认端口8080（系统属性 todo.http.port）
+ *   --lists [端口]    多清单HTTP接口，路径为 /lists/{清单ID}/tasks 等，每个清单一个数据目录（todo.lists.root）
+ * 主从复制（从节点使用自己的数据目录 todo.dataDir）：
+ *   --primary 复制端口 [HTTP端口]        启动HTTP接口，并向从节点发送变更
+ *   --follow 主机:复制端口 [HTTP端口]    从主节点复制数据，启动只读HTTP接口
+ * 导入导出（.csv 为CSV，其他扩展名为JSON Lines）：
+ *   --import 文件     从文件导入任务
+ *   --export 文件     把所有任务导出到文件
  */
 public class Main {
-    public static void main(String[] args) {
-        ConsoleUI ui = new ConsoleUI();
-        ui.start();
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            ConsoleUI ui = new ConsoleUI();
+            ui.start();
+            return;
+        }
+
+        if (args[0].equals("--follow")) {
+            follow(args);
+            return;
+        }
+        if (args[0].equals("--lists")) {
+            TodoStoreManager storeManager = new TodoStoreManager();
+            HttpApiServer server = new HttpApiServer(storeManager,
+                    args.length > 1 ? Integer.parseInt(args[1]) : Integer.getInteger("todo.http.port", 8080));
+            server.start();  // 各清单的服务自带退出时保存的关闭钩子
+            return;
+        }
+
+        TodoService todoService = new TodoService();
+        todoService.start();
+        if (args[0].equals("--primary")) {
+            if (args.length < 2) {
+                System.err.println("[错误] 缺少复制端口: --primary 复制端口 [HTTP端口]");
+                System.exit(2);
+            }
+            new ReplicationPrimary(todoService, Integer.parseInt(args[1])).start();
+            HttpApiServer server = args.length > 2
+                    ? new HttpApiServer(todoService, Integer.parseInt(args[2]))
+                    : new HttpApiServer(todoService);
+            server.start();
+            return;
+        }
+        if (args[0].equals("--server")) {
+            HttpApiServer server = args.length > 1
+                    ? new HttpApiServer(todoService, Integer.parseInt(args[1]))
+                    : new HttpApiServer(todoService);
+            server.start();  // 服务线程会一直运行，Ctrl+C 退出时由关闭钩子保存数据
+            return;
+        }
+
+        BatchRunner runner = new BatchRunner(todoService);
+        int exitCode;
+        switch (args[0]) {
+            case "--batch":
+                if (args.length < 2 || args[1].equals("-")) {
+                    exitCode = runner.run(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+                } else {
+                    exitCode = runner.run(Files.newBufferedReader(Path.of(args[1]), StandardCharsets.UTF_8));
+                }
+                break;
+            case "--exec":
+                exitCode = runner.run(Arrays.asList(args).subList(1, args.length));
+                break;
+            case "--import":
+            case "--export":
+                exitCode = transfer(todoService, args);
+                break;
+            default:
+                System.err.println("[错误] 未知参数: " + args[0]);
+                System.err.println("用法: java Main [--batch 文件|- | --exec 命令... | --server [端口] | --lists [端口] | --primary 复制端口 [HTTP端口] | --follow 主机:端口 [HTTP端口] | --import 文件 | --export 文件]");
+                exitCode = 2;
+        }
+        todoService.shutdown();
+        System.exit(exitCode);
+    }
+
+    /**
+     * 导入或导出任务，进度和结果输出到标准输出
+     */
+    private static int transfer(TodoService todoService, String[] args) {
+        if (args.length < 2) {
+            System.err.println("[错误] 缺少文件参数: " + args[0] + " 文件");
+            return 2;
+        }
+        Path file = Path.of(args[1]);
+        TaskRecordFormat format = TaskRecordFormat.fromFileName(args[1]);
+        try {
+            TransferSummary summary = args[0].equals("--import")
+                    ? todoService.importTasks(file, format, count -> System.out.println("[系统] 已读取 " + count + " 条"))
+                    : todoService.exportTasks(file, format, count -> System.out.println("[系统] 已写出 " + count + " 条"));
+            System.out.println("[系统] " + summary);
+            return 0;
+        } catch (IOException e) {
+            System.err.println("[错误] " + (args[0].equals("--import") ? "导入" : "导出") + "失败: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * 从节点：复制主节点的数据并提供只读HTTP接口
+     */
+    private static void follow(String[] args) throws IOException {
+        int colon = args.length > 1 ? args[1].lastIndexOf(':') : -1;
+        if (colon <= 0) {
+            System.err.println("[错误] 主节点地址格式应为 主机:端口");
+            System.exit(2);
+        }
+        // 生成重复任务由主节点进行，从节点通过复制得到结果（归档默认关闭，主节点的归档同样以删除复制过来）
+        System.setProperty("todo.recurrence.generate", "false");
+        TodoService todoService = new TodoService();
+        todoService.start();
+        Path dataDir = Paths.get(System.getProperty("todo.dataDir", "."));
+        new ReplicationFollower(todoService, args[1].substring(0, colon),
+                Integer.parseInt(args[1].substring(colon + 1)), dataDir).start();
+        HttpApiServer server = args.length > 2
+                ? new HttpApiServer(todoService, Integer.parseInt(args[2]), true)
+                : new HttpApiServer(todoService, Integer.getInteger("todo.http.port", 8080), true);
+        server.start();
     }
 }
@@ -0,0 +1,216 @@
+package dao;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import model.Recurrence;
+import model.Task;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LazyTaskScanner类 - 扫描一遍 tasks.json，记录每个任务在文件中的字节偏移
+ * 只解析ID、完成状态、优先级和截止时间，其余字段在访问时按偏移读取
+ *
+ * JsonReader内部有预读缓冲，拿不到记录的字节位置，所以先按字节找出顶层数组里
+ * 每个对象的范围，再用JsonReader只解析对象里需要的几个字段
+ *
+ * 读取详情共用扫描时打开的一个文件通道（按位置读取，多线程安全）。文件被 write 原子替换后，
+ * 旧通道仍指向替换前的文件内容，未加载的任务改到新文件的偏移后旧通道不再被引用，由通道自身的清理器关闭
+ */
+class LazyTaskScanner {
+    private final Path path;
+    private final Gson gson;
+    private FileChannel channel;
+
+    LazyTaskScanner(Path path, Gson gson) {
+        this.path = path;
+        this.gson = gson;
+    }
+
+    /**
+     * 扫描文件，返回只含索引字段的懒加载任务列表
+     */
+    List<Task> scan() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        List<Task> tasks = new ArrayList<>();
+        ByteArrayOutputStream record = new ByteArrayOutputStream(512);
+
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] buffer = new byte[64 * 1024];
+            long position = 0;
+            long start = -1;
+            int depth = 0;
+            boolean inString = false;
+            boolean escaped = false;
+            int read;
+
+            while ((read = in.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++, position++) {
+                    byte b = buffer[i];
+                    if (start >= 0) {
+                        record.write(b);
+                    }
+
+                    if (inString) {
+                        if (escaped) {
+                            escaped = false;
+                        } else if (b == '\\') {
+                            escaped = true;
+                        } else if (b == '"') {
+                            inString = false;
+                        }
+                    } else if (b == '"') {
+                        inString = true;
+                    } else if (b == '{' || b == '[') {
+                        depth++;
+                        // 顶层数组里的对象从深度2开始
+                        if (b == '{' && depth == 2) {
+                            start = position;
+                            record.reset();
+                            record.write(b);
+                        }
+                    } else if (b == '}' || b == ']') {
+                        if (b == '}' && depth == 2) {
+                            int length = (int) (position - start + 1);
+                            tasks.add(readHeader(record.toByteArray(), start, length));
+                            start = -1;
+                        }
+                        depth--;
+                    }
+                }
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * 从单条记录中读取索引字段，其余字段跳过
+     */
+    private Task readHeader(byte[] bytes, long offset, int length) throws IOException {
+        String id = null;
+        boolean completed = false;
+        LocalDateTime completedAt = null;
+        Task.Priority priority = Task.Priority.MEDIUM;
+        LocalDateTime dueDate = null;
+        Recurrence recurrence = null;
+
+        try (JsonReader reader = new JsonReader(
+                new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                    continue;
+                }
+                switch (name) {
+                    case "id":
+                        id = reader.nextString();
+                        break;
+                    case "completed":
+                        completed = reader.nextBoolean();
+                        break;
+                    case "completedAt":
+                        completedAt = LocalDateTime.parse(reader.nextString());
+                        break;
+                    case "priority":
+                        priority = Task.Priority.valueOf(reader.nextString());
+                        break;
+                    case "dueDate":
+                        dueDate = LocalDateTime.parse(reader.nextString());
+                        break;
+                    case "recurrence":
+                        recurrence = Recurrence.parse(reader.nextString());
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+
+        return Task.lazy(id, completed, completedAt, priority, dueDate, recurrence, loader(offset, length));
+    }
+
+    private Task.DetailLoader loader(long offset, int length) {
+        return () -> readFull(offset, length);
+    }
+
+    /**
+     * 按偏移读取并完整解析一条记录
+     */
+    private Task readFull(long offset, int length) {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new EOFException("记录超出文件末尾");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取任务详情失败: " + path, e);
+        }
+        return gson.fromJson(new String(buffer.array(), StandardCharsets.UTF_8), Task.class);
+    }
+
+    /**
+     * 把任务列表写成JSON数组：先写临时文件再原子替换file，返回写入的字节数
+     * 未加载详情的任务逐条从原位置读出后写出，不把详情留在任务上；写完后让它们改从新文件的偏移读取
+     */
+    static long write(Path file, List<Task> tasks, Gson gson) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        List<Task> lazyTasks = new ArrayList<>();
+        List<long[]> positions = new ArrayList<>();  // 未加载任务在新文件中的 {偏移, 长度}
+        long position = 0;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+            out.write('[');
+            position++;
+            for (int i = 0; i < tasks.size(); i++) {
+                Task task = tasks.get(i);
+                boolean lazy = !task.isLoaded();
+                byte[] record = gson.toJson(task.withDetails()).getBytes(StandardCharsets.UTF_8);
+                byte[] separator = (i == 0 ? "\n" : ",\n").getBytes(StandardCharsets.UTF_8);
+                out.write(separator);
+                position += separator.length;
+                if (lazy) {
+                    lazyTasks.add(task);
+                    positions.add(new long[] {position, record.length});
+                }
+                out.write(record);
+                position += record.length;
+            }
+            out.write("\n]\n".getBytes(StandardCharsets.UTF_8));
+            position += 3;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        if (!lazyTasks.isEmpty()) {
+            LazyTaskScanner relocated = new LazyTaskScanner(file, gson);
+            relocated.channel = FileChannel.open(file, StandardOpenOption.READ);
+            for (int i = 0; i < lazyTasks.size(); i++) {
+                long[] at = positions.get(i);
+                lazyTasks.get(i).relocateDetails(relocated.loader(at[0], (int) at[1]));
+            }
+        }
+        return position;
+    }
+}
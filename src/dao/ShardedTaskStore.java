@@ -0,0 +1,300 @@
+package dao;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import model.Task;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * ShardedTaskStore类 - 按任务ID的哈希把任务分散到N个文件
+ * 启动时在ForkJoin池上并行加载所有分片，保存时只重写被修改过的分片
+ *
+ * 分片文件位于数据目录的 tasks.shards/ 下，命名为 shard-000.json 等，写出全部分片后在 shard-count 中记下分片数；
+ * 目录不存在而 tasks.json 存在时，自动把旧数据迁移成分片，原文件改名为 tasks.json.bak
+ */
+class ShardedTaskStore {
+    static final String SHARD_DIR = "tasks.shards";
+    private static final String SHARD_PREFIX = "shard-";
+    private static final String SHARD_SUFFIX = ".json";
+    private static final String SHARD_COUNT_FILE = "shard-count";
+
+    private final Path shardDir;
+    private final int shardCount;
+    private final Gson gson;
+    private final boolean lazy;
+    private final BitSet dirty;  // 待重写的分片，由 dirty 自身加锁保护
+    private volatile boolean complete;  // 全部分片都已按当前分片数写出，shard-count 已记录
+
+    ShardedTaskStore(Path dataDir, int shardCount, Gson gson, boolean lazy) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("分片数必须为正数: " + shardCount);
+        }
+        this.shardDir = dataDir.resolve(SHARD_DIR);
+        this.shardCount = shardCount;
+        this.gson = gson;
+        this.lazy = lazy;
+        this.dirty = new BitSet(shardCount);
+    }
+
+    int getShardCount() {
+        return shardCount;
+    }
+
+    boolean exists() {
+        return Files.isDirectory(shardDir);
+    }
+
+    /**
+     * 任务所在的分片。String.hashCode 的算法是规范规定的，不同JVM上结果一致
+     */
+    int shardOf(String id) {
+        return Math.floorMod(id.hashCode(), shardCount);
+    }
+
+    void markChanged(String id) {
+        int shard = shardOf(id);
+        synchronized (dirty) {
+            dirty.set(shard);
+        }
+    }
+
+    void markAllChanged() {
+        synchronized (dirty) {
+            dirty.set(0, shardCount);
+        }
+    }
+
+    /**
+     * 取出并清空待重写的分片集合
+     * 必须在取任务列表拷贝之前调用：之后发生的修改会重新标记分片，由下一次保存写入
+     */
+    BitSet drainChanged() {
+        synchronized (dirty) {
+            BitSet changed = (BitSet) dirty.clone();
+            dirty.clear();
+            return changed;
+        }
+    }
+
+    /**
+     * 并行加载所有分片
+     * shard-count 中记录的分片数与配置不同或没有记录时（修改了 todo.shards，或上次没有写完全部分片），
+     * 读取目录中所有分片文件，立即按当前分片数重写，再删除多出的旧分片
+     */
+    List<Task> load() throws IOException {
+        boolean matches = readShardCount() == shardCount;
+        List<Path> files = listShardFiles();
+        List<Path> current = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            if (files.contains(shardFile(shard))) {
+                current.add(shardFile(shard));
+            }
+        }
+        List<List<Task>> shards;
+        try {
+            // 并行流运行在公共ForkJoin池上，每个分片一个子任务
+            shards = (matches ? current : files).parallelStream()
+                    .map(this::readShard)
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        List<Task> tasks = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (List<Task> shard : shards) {
+            for (Task task : shard) {
+                if (ids.add(task.getId())) {  // 重新分片中途退出时，同一任务可能同时在新旧两个分片中
+                    tasks.add(task);
+                }
+            }
+        }
+
+        if (!matches) {
+            reshard(tasks, files);
+        } else {
+            complete = true;
+            deleteStaleShards(files);
+        }
+        return tasks;
+    }
+
+    private void reshard(List<Task> tasks, List<Path> oldFiles) throws IOException {
+        loadAllDetails(tasks);  // 旧分片文件会被替换或删除，详情要先读出来
+        BitSet all = new BitSet(shardCount);
+        all.set(0, shardCount);
+        save(tasks, all);
+        deleteStaleShards(oldFiles);
+        System.out.println("[系统] 已重新分片为 " + shardCount + " 个文件");
+    }
+
+    /**
+     * 删除不属于当前分片数的旧分片文件，只在新分片全部写出、shard-count 已更新后调用
+     */
+    private void deleteStaleShards(List<Path> files) throws IOException {
+        for (Path file : files) {
+            if (!isCurrentShardFile(file)) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private boolean isCurrentShardFile(Path file) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            if (shardFile(shard).equals(file)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 并行重写指定的分片，写失败的分片重新标记，下次保存时重试
+     * @return 写入的字节数
+     */
+    long save(List<Task> tasks, BitSet changed) throws IOException {
+        boolean writeAll = !complete;
+        if (writeAll) {
+            // 新建的分片目录第一次保存时写出全部分片，之后才能记录分片数
+            changed = new BitSet(shardCount);
+            changed.set(0, shardCount);
+        } else if (changed.isEmpty()) {
+            return 0;
+        }
+        Files.createDirectories(shardDir);
+
+        Map<Integer, List<Task>> byShard = new LinkedHashMap<>();
+        changed.stream().forEach(shard -> byShard.put(shard, new ArrayList<>()));
+        for (Task task : tasks) {
+            List<Task> shard = byShard.get(shardOf(task.getId()));
+            if (shard != null) {
+                shard.add(task);
+            }
+        }
+
+        Map<Integer, Long> written = byShard.entrySet().parallelStream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> tryWriteShard(entry.getKey(), entry.getValue())));
+
+        List<Integer> failed = new ArrayList<>();
+        long bytes = 0;
+        for (Map.Entry<Integer, Long> entry : written.entrySet()) {
+            if (entry.getValue() < 0) {
+                failed.add(entry.getKey());
+            } else {
+                bytes += entry.getValue();
+            }
+        }
+        if (!failed.isEmpty()) {
+            synchronized (dirty) {
+                failed.forEach(dirty::set);
+            }
+            throw new IOException("写入分片失败: " + failed);
+        }
+        if (writeAll) {
+            writeShardCount();
+            complete = true;
+        }
+        return bytes;
+    }
+
+    /**
+     * 记录的分片数，没有记录或无法读取时返回-1
+     */
+    private int readShardCount() {
+        Path file = shardDir.resolve(SHARD_COUNT_FILE);
+        try {
+            return Integer.parseInt(Files.readString(file, StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void writeShardCount() throws IOException {
+        Path file = shardDir.resolve(SHARD_COUNT_FILE);
+        Path temp = file.resolveSibling(SHARD_COUNT_FILE + ".tmp");
+        Files.writeString(temp, shardCount + "\n", StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 把单文件数据迁移为分片：写出全部分片后再把原文件改名备份
+     */
+    void migrateFrom(List<Task> tasks, Path snapshotFile) throws IOException {
+        loadAllDetails(tasks);
+        BitSet all = new BitSet(shardCount);
+        all.set(0, shardCount);
+        save(tasks, all);
+        Files.move(snapshotFile, snapshotFile.resolveSibling(snapshotFile.getFileName() + ".bak"),
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private List<Path> listShardFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(shardDir, SHARD_PREFIX + "*" + SHARD_SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private List<Task> readShard(Path file) {
+        try {
+            if (lazy) {
+                return new LazyTaskScanner(file, gson).scan();
+            }
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                List<Task> tasks = gson.fromJson(reader, new TypeToken<List<Task>>(){}.getType());
+                return tasks == null ? new ArrayList<>() : tasks;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 写入一个分片，返回文件大小，失败时返回-1
+     */
+    private long tryWriteShard(int shard, List<Task> tasks) {
+        try {
+            return writeShard(shard, tasks);
+        } catch (IOException e) {
+            System.err.println("[错误] 保存分片 " + shard + " 失败: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * 先写临时文件再原子替换，和单文件快照的写法一致；懒加载任务的详情逐条读出写入，不在任务上保留
+     */
+    private long writeShard(int shard, List<Task> tasks) throws IOException {
+        return LazyTaskScanner.write(shardFile(shard), tasks, gson);
+    }
+
+    private Path shardFile(int shard) {
+        return shardDir.resolve(String.format("%s%03d%s", SHARD_PREFIX, shard, SHARD_SUFFIX));
+    }
+
+    private static void loadAllDetails(List<Task> tasks) {
+        for (Task task : tasks) {
+            task.loadDetails();
+        }
+    }
+}
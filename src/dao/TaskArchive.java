@@ -0,0 +1,149 @@
+package dao;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import model.Task;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * TaskArchive类 - 已完成任务的压缩归档文件（tasks.archive.gz）
+ *
+ * 每次归档在文件末尾追加一个独立的GZIP段，段内每行一个任务的JSON；
+ * 多个GZIP段首尾相接仍是合法的GZIP文件，读取时按顺序解压。
+ * 读取以流的方式逐行解析，不把归档整体读入内存
+ */
+public class TaskArchive {
+    private static final String FILE_PATH = "tasks.archive.gz";
+
+    private final Path path;
+    private final Gson gson;
+
+    TaskArchive(Path dataDir, Gson gson) {
+        this.path = dataDir.resolve(FILE_PATH);
+        this.gson = gson;
+    }
+
+    /**
+     * 把任务追加到归档，写入并同步到磁盘后才返回
+     * @return 写入的压缩后字节数
+     */
+    public synchronized long append(List<Task> tasks) throws IOException {
+        if (tasks.isEmpty()) {
+            return 0;
+        }
+        long before = size();
+        try (FileOutputStream file = new FileOutputStream(path.toFile(), true)) {
+            GZIPOutputStream gzip = new GZIPOutputStream(file, 64 * 1024);
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8));
+            for (Task task : tasks) {
+                task.loadDetails();  // Gson直接读字段，懒加载任务要先补齐
+                writer.write(gson.toJson(task));
+                writer.write('\n');
+            }
+            writer.flush();
+            gzip.finish();  // 写出GZIP段尾，不关闭文件
+            file.getFD().sync();
+        }
+        return size() - before;
+    }
+
+    /**
+     * 归档文件大小（压缩后）
+     */
+    public long size() {
+        try {
+            return Files.exists(path) ? Files.size(path) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 按归档顺序流式读取所有任务，用完后需要关闭流（try-with-resources）
+     * 文件末尾不完整的GZIP段（例如归档时进程崩溃）会被忽略
+     */
+    public Stream<Task> stream() {
+        if (size() == 0) {
+            return Stream.empty();
+        }
+        BufferedReader reader;
+        try {
+            reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(path), 64 * 1024), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("[错误] 读取归档失败: " + e.getMessage());
+            return Stream.empty();
+        }
+
+        Iterator<Task> iterator = new Iterator<Task>() {
+            private Task next = advance();
+
+            private Task advance() {
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isEmpty()) {
+                            continue;
+                        }
+                        try {
+                            return gson.fromJson(line, Task.class);
+                        } catch (JsonParseException e) {
+                            System.err.println("[错误] 跳过无法解析的归档记录: " + e.getMessage());
+                        }
+                    }
+                    return null;
+                } catch (EOFException e) {
+                    System.out.println("[系统] 归档末尾有不完整的数据，已忽略");
+                    return null;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("读取归档失败: " + path, e);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Task next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Task task = next;
+                next = advance();
+                return task;
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        // 只读流，关闭失败不影响数据
+                    }
+                });
+    }
+}
@@ -5,63 +5,337 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.TypeAdapter;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
+import metrics.TodoMetrics;
+import model.Recurrence;
 import model.Task;
 
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
  * TaskDao类 - 负责任务数据的持久化
  */
 public class TaskDao {
     private static final String FILE_PATH = "tasks.json";
+    private static final String JOURNAL_PATH = "tasks.journal";
+    private static final String JOURNAL_OLD_PATH = "tasks.journal.old";
+    private static final long DEFAULT_COMPACT_THRESHOLD = 4L * 1024 * 1024;
+    private static final int DEFAULT_SHARD_COUNT = 16;
+
+    /**
+     * 持久化模式
+     */
+    public enum PersistenceMode {
+        SNAPSHOT,  // 每次修改都重写整个 tasks.json
+        JOURNAL,   // 修改追加到日志，日志过大时在后台压缩成新快照
+        SHARDED;   // 按ID哈希分成多个文件，只重写修改过的分片
+
+        /**
+         * 从系统属性 todo.persistence 读取模式，默认SNAPSHOT
+         */
+        static PersistenceMode fromProperty() {
+            String value = System.getProperty("todo.persistence", "snapshot");
+            for (PersistenceMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(value)) {
+                    return mode;
+                }
+            }
+            return SNAPSHOT;
+        }
+    }
+
+    /**
+     * 加载模式
+     */
+    public enum LoadMode {
+        EAGER,  // 启动时完整解析所有任务
+        LAZY;   // 启动时只扫描索引字段，任务详情在访问时按偏移读取
+
+        /**
+         * 从系统属性 todo.load 读取模式，默认EAGER
+         */
+        static LoadMode fromProperty() {
+            String value = System.getProperty("todo.load", "eager");
+            return "lazy".equalsIgnoreCase(value) ? LAZY : EAGER;
+        }
+    }
+
     private Gson gson;
+    private Gson journalGson;
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final Path oldJournalFile;
+    private final PersistenceMode mode;
+    private final LoadMode loadMode;
+    private final long compactThreshold;
+    private final TaskJournal journal;
+    private final ShardedTaskStore shards;
+    private final TaskArchive archive;
+    private final ExecutorService compactor;
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
+    private final Object journalLock = new Object();
+    private final Object snapshotLock = new Object();
+    private long snapshotGeneration;  // 每写一次快照加一，后台压缩据此丢弃过期的快照
+    private final TodoMetrics metrics = TodoMetrics.getInstance();
 
     public TaskDao() {
+        // 数据目录默认为当前目录，可通过系统属性 todo.dataDir 指定
+        this(Paths.get(System.getProperty("todo.dataDir", ".")));
+    }
+
+    public TaskDao(Path dataDir) {
+        this(dataDir, PersistenceMode.fromProperty(), LoadMode.fromProperty(),
+                Long.getLong("todo.journal.compactBytes", DEFAULT_COMPACT_THRESHOLD));
+    }
+
+    public TaskDao(Path dataDir, PersistenceMode mode, LoadMode loadMode, long compactThreshold) {
+        this.snapshotFile = dataDir.resolve(FILE_PATH);
+        this.journalFile = dataDir.resolve(JOURNAL_PATH);
+        this.oldJournalFile = dataDir.resolve(JOURNAL_OLD_PATH);
         // 创建Gson实例，配置LocalDateTime适配器
-        this.gson = new GsonBuilder()
+        this.gson = newGsonBuilder()
                 .setPrettyPrinting()  // 格式化输出，便于阅读
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
                 .create();
+        // 日志每条记录占一行，不能格式化
+        this.journalGson = newGsonBuilder().create();
+        this.mode = mode;
+        this.loadMode = loadMode;
+        this.compactThreshold = compactThreshold;
+
+        if (mode == PersistenceMode.JOURNAL) {
+            this.journal = new TaskJournal(journalFile, journalGson);
+            this.compactor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "task-journal-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.journal = null;
+            this.compactor = null;
+        }
+
+        this.archive = new TaskArchive(dataDir, journalGson);
+        this.shards = mode == PersistenceMode.SHARDED
+                ? new ShardedTaskStore(dataDir, Integer.getInteger("todo.shards", DEFAULT_SHARD_COUNT),
+                        gson, loadMode == LoadMode.LAZY)
+                : null;
+    }
+
+    /**
+     * 已完成任务的归档，与持久化模式无关
+     */
+    public TaskArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * 是否使用日志模式
+     */
+    public boolean isJournaled() {
+        return mode == PersistenceMode.JOURNAL;
+    }
+
+    /**
+     * 是否使用分片存储
+     */
+    public boolean isSharded() {
+        return mode == PersistenceMode.SHARDED;
+    }
+
+    /**
+     * 记录某个任务被修改或删除，分片模式下下次保存会重写它所在的分片
+     */
+    public void markChanged(String id) {
+        if (isSharded()) {
+            shards.markChanged(id);
+        }
+    }
+
+    /**
+     * 记录所有任务都被修改（例如清空），分片模式下下次保存会重写全部分片
+     */
+    public void markAllChanged() {
+        if (isSharded()) {
+            shards.markAllChanged();
+        }
     }
 
     /**
      * 保存任务列表到文件
+     * 日志模式下同时清空日志，相当于一次同步压缩；分片模式下重写全部分片
      */
     public void saveTasks(List<Task> tasks) {
-        try (FileWriter writer = new FileWriter(FILE_PATH)) {
-            gson.toJson(tasks, writer);
-            System.out.println("[系统] 数据已自动保存");
+        saveTasks(tasks, true);
+    }
+
+    /**
+     * 保存由snapshot提供的任务列表
+     * 分片模式下只重写上次保存以来被标记修改的分片，其他模式等同于 saveTasks(snapshot.get(), announce)
+     */
+    public void saveTasks(Supplier<List<Task>> snapshot, boolean announce) {
+        if (!isSharded()) {
+            saveTasks(snapshot.get(), announce);
+            return;
+        }
+        // 先取出修改标记再拷贝列表，之后的修改会重新标记，不会被这次保存漏掉
+        BitSet changed = shards.drainChanged();
+        saveShards(snapshot.get(), changed, announce);
+    }
+
+    private void saveShards(List<Task> tasks, BitSet changed, boolean announce) {
+        long start = System.nanoTime();
+        try {
+            long bytes = shards.save(tasks, changed);
+            metrics.recordSave(start, bytes, tasks.size());
+            if (announce) {
+                System.out.println("[系统] 数据已自动保存");
+            }
         } catch (IOException e) {
             System.err.println("[错误] 保存失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 保存任务列表到文件
+     * @param announce 是否打印保存提示，后台保存时不打印
+     */
+    public void saveTasks(List<Task> tasks, boolean announce) {
+        if (isJournaled()) {
+            saveSnapshotAndResetJournal(tasks, announce);
+            return;
+        }
+        if (isSharded()) {
+            BitSet all = new BitSet(shards.getShardCount());
+            all.set(0, shards.getShardCount());
+            saveShards(tasks, all, announce);
+            return;
+        }
+
+        try {
+            writeSnapshot(tasks);
+            if (announce) {
+                System.out.println("[系统] 数据已自动保存");
+            }
+        } catch (IOException e) {
+            System.err.println("[错误] 保存失败: " + e.getMessage());
+        }
+    }
+
+    private void saveSnapshotAndResetJournal(List<Task> tasks, boolean announce) {
+        synchronized (snapshotLock) {
+            snapshotGeneration++;
+            synchronized (journalLock) {
+                try {
+                    writeSnapshot(tasks);
+                    journal.close();
+                    Files.deleteIfExists(oldJournalFile);
+                    Files.deleteIfExists(journalFile);
+                    journal.open();
+                    if (announce) {
+                        System.out.println("[系统] 数据已自动保存");
+                    }
+                } catch (IOException e) {
+                    System.err.println("[错误] 保存失败: " + e.getMessage());
+                }
+            }
+        }
+    }
+
     /**
      * 从文件加载任务列表
+     * 日志模式下在快照之上重放日志
      */
     public List<Task> loadTasks() {
-        File file = new File(FILE_PATH);
-        
+        long start = System.nanoTime();
+        List<Task> tasks;
+        if (isSharded()) {
+            tasks = loadShards();
+        } else {
+            tasks = loadSnapshot();
+            if (isJournaled()) {
+                tasks = replayJournal(tasks);
+            }
+        }
+        metrics.recordLoad(start, tasks.size());
+        return tasks;
+    }
+
+    /**
+     * 分片模式加载；还没有分片目录时，把单文件快照和遗留的日志一起迁移成分片
+     */
+    private List<Task> loadShards() {
+        try {
+            if (shards.exists()) {
+                List<Task> tasks = shards.load();
+                System.out.println("[系统] 成功加载 " + tasks.size() + " 个任务（" + shards.getShardCount() + " 个分片）");
+                return tasks;
+            }
+            if (!Files.exists(snapshotFile) && !Files.exists(journalFile) && !Files.exists(oldJournalFile)) {
+                System.out.println("[系统] 未找到数据文件，创建新的任务列表");
+                return new ArrayList<>();
+            }
+
+            Map<String, Task> byId = new LinkedHashMap<>();
+            for (Task task : loadSnapshot()) {
+                byId.put(task.getId(), task);
+            }
+            TaskJournal.replay(oldJournalFile, journalGson, byId);
+            TaskJournal.replay(journalFile, journalGson, byId);
+            List<Task> tasks = new ArrayList<>(byId.values());
+
+            if (!Files.exists(snapshotFile)) {
+                // 只有日志没有快照时，先补一份快照，迁移后统一备份为 tasks.json.bak
+                writeSnapshot(tasks);
+            }
+            shards.migrateFrom(tasks, snapshotFile);
+            Files.deleteIfExists(oldJournalFile);
+            Files.deleteIfExists(journalFile);
+            System.out.println("[系统] 已将 " + tasks.size() + " 个任务迁移到 " + shards.getShardCount()
+                    + " 个分片，原文件备份为 " + FILE_PATH + ".bak");
+            return tasks;
+        } catch (IOException e) {
+            System.err.println("[错误] 加载失败: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private List<Task> loadSnapshot() {
+        File file = snapshotFile.toFile();
+
         // 如果文件不存在，返回空列表
         if (!file.exists()) {
             System.out.println("[系统] 未找到数据文件，创建新的任务列表");
             return new ArrayList<>();
         }
 
+        if (loadMode == LoadMode.LAZY) {
+            return scanSnapshot(file);
+        }
+
         try (FileReader reader = new FileReader(file)) {
             List<Task> tasks = gson.fromJson(reader, new TypeToken<List<Task>>(){}.getType());
-            
+
             if (tasks == null) {
                 return new ArrayList<>();
             }
-            
+
             System.out.println("[系统] 成功加载 " + tasks.size() + " 个任务");
             return tasks;
         } catch (IOException e) {
@@ -70,6 +344,246 @@ public class TaskDao {
         }
     }
 
+    /**
+     * 懒加载：只扫描索引字段
+     */
+    private List<Task> scanSnapshot(File file) {
+        try {
+            List<Task> tasks = new LazyTaskScanner(file.toPath(), gson).scan();
+            System.out.println("[系统] 成功索引 " + tasks.size() + " 个任务（详情按需加载）");
+            return tasks;
+        } catch (IOException e) {
+            System.err.println("[错误] 加载失败: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 在快照上依次重放上次未完成压缩的旧日志和当前日志
+     */
+    private List<Task> replayJournal(List<Task> snapshot) {
+        Map<String, Task> byId = new LinkedHashMap<>();
+        for (Task task : snapshot) {
+            byId.put(task.getId(), task);
+        }
+
+        try {
+            int applied = TaskJournal.replay(oldJournalFile, journalGson, byId);
+            applied += TaskJournal.replay(journalFile, journalGson, byId);
+            if (applied > 0) {
+                System.out.println("[系统] 已重放 " + applied + " 条日志记录");
+            }
+        } catch (IOException e) {
+            System.err.println("[错误] 重放日志失败: " + e.getMessage());
+        }
+
+        List<Task> tasks = new ArrayList<>(byId.values());
+        if (Files.exists(oldJournalFile)) {
+            // 上次压缩被中断，直接写一份完整快照收尾
+            saveTasks(tasks);
+        } else {
+            openJournal();
+        }
+        return tasks;
+    }
+
+    private void openJournal() {
+        try {
+            if (!journal.isOpen()) {
+                journal.open();
+            }
+        } catch (IOException e) {
+            System.err.println("[错误] 打开日志失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 追加一条新增/修改记录
+     */
+    public void appendPut(Task task) {
+        task.loadDetails();  // Gson直接读字段，懒加载任务要先补齐
+        append(new TaskJournal.Entry(TaskJournal.Op.PUT, task, null));
+    }
+
+    /**
+     * 追加一条删除记录
+     */
+    public void appendDelete(String id) {
+        append(new TaskJournal.Entry(TaskJournal.Op.DELETE, null, id));
+    }
+
+    /**
+     * 追加一条清空记录
+     */
+    public void appendClear() {
+        appendBatch(true, List.of(), List.of());
+    }
+
+    /**
+     * 一次追加多个新增/修改和删除记录，只写一次日志
+     */
+    public void appendBatch(List<Task> puts, List<String> deletedIds) {
+        appendBatch(false, puts, deletedIds);
+    }
+
+    /**
+     * 一次追加多个记录，只写一次日志
+     * @param clear 是否在这些记录之前先追加一条清空记录（复制来的全量数据）
+     */
+    public void appendBatch(boolean clear, List<Task> puts, List<String> deletedIds) {
+        List<TaskJournal.Entry> entries = new ArrayList<>(puts.size() + deletedIds.size() + 1);
+        if (clear) {
+            entries.add(new TaskJournal.Entry(TaskJournal.Op.CLEAR, null, null));
+        }
+        for (Task task : puts) {
+            task.loadDetails();
+            entries.add(new TaskJournal.Entry(TaskJournal.Op.PUT, task, null));
+        }
+        for (String id : deletedIds) {
+            entries.add(new TaskJournal.Entry(TaskJournal.Op.DELETE, null, id));
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        synchronized (journalLock) {
+            try {
+                openJournal();
+                metrics.recordJournalAppend(journal.appendAll(entries));
+            } catch (IOException e) {
+                System.err.println("[错误] 写入日志失败: " + e.getMessage());
+            }
+        }
+    }
+
+    private void append(TaskJournal.Entry entry) {
+        synchronized (journalLock) {
+            try {
+                openJournal();
+                metrics.recordJournalAppend(journal.append(entry));
+            } catch (IOException e) {
+                System.err.println("[错误] 写入日志失败: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 日志是否已超过压缩阈值
+     */
+    public boolean needsCompaction() {
+        return isJournaled() && !compacting.get() && journal.size() >= compactThreshold;
+    }
+
+    /**
+     * 在后台把日志压缩为新快照
+     * 先切换日志，再通过snapshot取任务列表的浅拷贝；切换之后的修改都在新日志里，
+     * 即使后台写快照时任务又被修改，重放新日志也能得到正确结果
+     */
+    public void compactAsync(Supplier<List<Task>> snapshot) {
+        if (!isJournaled() || compactor.isShutdown() || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+
+        synchronized (journalLock) {
+            try {
+                journal.rotateTo(oldJournalFile);
+            } catch (IOException e) {
+                System.err.println("[错误] 切换日志失败: " + e.getMessage());
+                compacting.set(false);
+                return;
+            }
+        }
+
+        List<Task> tasks = snapshot.get();
+        long generation;
+        synchronized (snapshotLock) {
+            generation = ++snapshotGeneration;
+        }
+
+        compactor.execute(() -> {
+            try {
+                synchronized (snapshotLock) {
+                    // 期间已有更新的完整快照写入，这份快照已过期
+                    if (generation != snapshotGeneration) {
+                        return;
+                    }
+                    writeSnapshot(tasks);
+                    Files.deleteIfExists(oldJournalFile);
+                }
+            } catch (IOException e) {
+                // 旧日志保留，下次启动时仍会重放
+                System.err.println("[错误] 压缩日志失败: " + e.getMessage());
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    /**
+     * 等待进行中的压缩完成，停止压缩线程并关闭日志文件
+     * 关闭后仍可以继续保存，日志会在下次追加时重新打开
+     */
+    public void close() {
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) {
+            synchronized (journalLock) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("[错误] 关闭日志失败: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 先写临时文件再原子替换，避免写到一半时崩溃留下损坏的快照
+     */
+    private void writeSnapshot(List<Task> tasks) throws IOException {
+        long start = System.nanoTime();
+        // 懒加载任务的详情逐条从旧文件读出写入，不在任务上保留；替换后它们改从新文件读取
+        long bytes = LazyTaskScanner.write(snapshotFile, tasks, gson);
+        metrics.recordSave(start, bytes, tasks.size());
+    }
+
+    /**
+     * 创建与存储文件格式一致的GsonBuilder，其他需要输出任务JSON的地方共用这套配置
+     */
+    public static GsonBuilder newGsonBuilder() {
+        return new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .registerTypeAdapter(Recurrence.class, new RecurrenceAdapter());
+    }
+
+    /**
+     * 重复规则的JSON适配器，保存为 DAILY、EVERY_3_DAYS 这样的字符串
+     */
+    private static class RecurrenceAdapter extends TypeAdapter<Recurrence> {
+        @Override
+        public void write(JsonWriter out, Recurrence value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(value.toCode());
+            }
+        }
+
+        @Override
+        public Recurrence read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return Recurrence.parse(in.nextString());
+        }
+    }
+
     /**
      * LocalDateTime的JSON适配器
      */
@@ -92,4 +606,4 @@ public class TaskDao {
             return LocalDateTime.parse(dateTimeStr);
         }
     }
-}
\ No newline at end of file
+}
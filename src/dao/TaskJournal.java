@@ -0,0 +1,165 @@
+package dao;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import model.Task;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TaskJournal类 - 追加写的任务变更日志
+ * 每行一条JSON记录，记录的是任务的完整状态，重放多次结果相同
+ */
+class TaskJournal {
+    /**
+     * 日志操作类型
+     */
+    enum Op {
+        PUT,     // 新增或覆盖一个任务
+        DELETE,  // 删除一个任务
+        CLEAR    // 清空所有任务
+    }
+
+    /**
+     * 一条日志记录
+     */
+    static class Entry {
+        Op op;
+        Task task;
+        String id;
+
+        Entry(Op op, Task task, String id) {
+            this.op = op;
+            this.task = task;
+            this.id = id;
+        }
+    }
+
+    private final Path path;
+    private final Gson gson;
+    private BufferedWriter writer;
+    private volatile long size;  // 写入在锁内进行，读取不加锁
+
+    TaskJournal(Path path, Gson gson) {
+        this.path = path;
+        this.gson = gson;
+    }
+
+    /**
+     * 以追加模式打开日志文件
+     */
+    void open() throws IOException {
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        this.size = Files.size(path);
+    }
+
+    boolean isOpen() {
+        return writer != null;
+    }
+
+    /**
+     * 追加一条记录，写完立即flush，进程崩溃时最多丢失最后一条不完整的记录
+     * @return 写入的字节数
+     */
+    long append(Entry entry) throws IOException {
+        String line = gson.toJson(entry);
+        writer.write(line);
+        writer.write('\n');
+        writer.flush();
+        long bytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+        size += bytes;
+        return bytes;
+    }
+
+    /**
+     * 追加多条记录，全部写完后只flush一次，用于批量操作
+     * @return 写入的字节数
+     */
+    long appendAll(List<Entry> entries) throws IOException {
+        long bytes = 0;
+        for (Entry entry : entries) {
+            String line = gson.toJson(entry);
+            writer.write(line);
+            writer.write('\n');
+            bytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        writer.flush();
+        size += bytes;
+        return bytes;
+    }
+
+    /**
+     * 当前日志大小（字节）
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * 把当前日志改名为target并重新打开一个空日志，用于压缩前的切换
+     */
+    void rotateTo(Path target) throws IOException {
+        close();
+        Files.move(path, target, StandardCopyOption.REPLACE_EXISTING);
+        open();
+    }
+
+    void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    /**
+     * 把日志文件中的记录按顺序应用到tasks上，返回应用的记录数
+     */
+    static int replay(Path path, Gson gson, Map<String, Task> tasks) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+
+        int applied = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                Entry entry;
+                try {
+                    entry = gson.fromJson(line, Entry.class);
+                } catch (JsonParseException e) {
+                    // 只可能是崩溃时写了一半的最后一条记录
+                    System.err.println("[错误] 日志记录损坏，已忽略后续内容: " + path);
+                    break;
+                }
+
+                switch (entry.op) {
+                    case PUT:
+                        tasks.put(entry.task.getId(), entry.task);
+                        break;
+                    case DELETE:
+                        tasks.remove(entry.id);
+                        break;
+                    case CLEAR:
+                        tasks.clear();
+                        break;
+                }
+                applied++;
+            }
+        }
+        return applied;
+    }
+}
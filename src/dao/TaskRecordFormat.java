@@ -0,0 +1,16 @@
+package dao;
+
+/**
+ * 导入导出的文件格式
+ */
+public enum TaskRecordFormat {
+    JSONL,  // 每行一个任务的JSON
+    CSV;    // 第一行为表头，字段按表头名称对应，顺序不限
+
+    /**
+     * 按文件扩展名判断格式：.csv 为CSV，其他为JSON Lines
+     */
+    public static TaskRecordFormat fromFileName(String fileName) {
+        return fileName.toLowerCase().endsWith(".csv") ? CSV : JSONL;
+    }
+}
@@ -0,0 +1,283 @@
+package dao;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import model.Recurrence;
+import model.Task;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * TaskRecordReader类 - 逐条读取导入文件中的任务
+ *
+ * 每次只解析一条记录，内存占用与文件大小无关。
+ * 缺少ID时生成新ID，缺少创建时间时取当前时间，缺少优先级时为中；标题不能为空
+ */
+public class TaskRecordReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final TaskRecordFormat format;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private List<String> header;  // CSV表头，字段名已转为小写
+    private long recordNumber;
+
+    private TaskRecordReader(Reader reader, TaskRecordFormat format) {
+        this.reader = reader;
+        this.format = format;
+    }
+
+    public static TaskRecordReader open(Path file, TaskRecordFormat format) throws IOException {
+        return new TaskRecordReader(Files.newBufferedReader(file, StandardCharsets.UTF_8), format);
+    }
+
+    public static TaskRecordReader open(Reader reader, TaskRecordFormat format) {
+        return new TaskRecordReader(reader instanceof BufferedReader ? reader : new BufferedReader(reader), format);
+    }
+
+    /**
+     * 已读取的记录数（含无效记录），用于报告出错位置
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * 读取下一个任务，文件结束时返回null
+     * @throws IllegalArgumentException 当前记录无效时；记录已被跳过，可以继续读取下一条
+     */
+    public Task next() throws IOException {
+        Map<String, String> fields = format == TaskRecordFormat.CSV ? nextCsvRecord() : nextJsonRecord();
+        if (fields == null) {
+            return null;
+        }
+        recordNumber++;
+        return toTask(fields);
+    }
+
+    private Map<String, String> nextJsonRecord() throws IOException {
+        String line;
+        do {
+            line = readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.trim().isEmpty());
+
+        Map<String, String> fields = new HashMap<>();
+        try {
+            JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+            for (Map.Entry<String, JsonElement> entry : json.entrySet()) {
+                JsonElement value = entry.getValue();
+                if (!value.isJsonNull()) {
+                    fields.put(entry.getKey().toLowerCase(), value.getAsString());
+                }
+            }
+        } catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+            recordNumber++;
+            throw new IllegalArgumentException("JSON格式错误: " + e.getMessage());
+        }
+        return fields;
+    }
+
+    private Map<String, String> nextCsvRecord() throws IOException {
+        if (header == null) {
+            List<String> names = readCsvRow();
+            if (names == null) {
+                return null;
+            }
+            header = new ArrayList<>(names.size());
+            for (String name : names) {
+                header.add(name.trim().toLowerCase());
+            }
+        }
+
+        List<String> row = readCsvRow();
+        if (row == null) {
+            return null;
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < row.size() && i < header.size(); i++) {
+            fields.put(header.get(i), row.get(i));
+        }
+        return fields;
+    }
+
+    /**
+     * 读取一行CSV的各字段（RFC 4180：含逗号、引号、换行的字段用双引号括起，引号写两次），跳过空行
+     * 文件结束时返回null
+     */
+    private List<String> readCsvRow() throws IOException {
+        while (true) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean read = false;
+            int c;
+            while ((c = read()) != -1) {
+                read = true;
+                if (quoted) {
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            read();
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (!read) {
+                return null;
+            }
+            fields.add(field.toString());
+            if (fields.size() > 1 || !fields.get(0).isEmpty()) {
+                return fields;
+            }
+        }
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        boolean read = false;
+        while ((c = read()) != -1) {
+            read = true;
+            if (c == '\n') {
+                break;
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return read ? line.toString() : null;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        limit = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private static Task toTask(Map<String, String> fields) {
+        String title = fields.get("title");
+        if (title == null || title.trim().isEmpty()) {
+            throw new IllegalArgumentException("缺少标题");
+        }
+        String id = fields.get("id");
+        if (id == null || id.trim().isEmpty()) {
+            id = UUID.randomUUID().toString();
+        }
+        boolean completed = parseBoolean(fields.get("completed"));
+        LocalDateTime createdAt = parseDateTime(fields.get("createdat"));
+        Task task = new Task(id.trim(), title.trim(), fields.getOrDefault("description", ""), completed,
+                createdAt == null ? LocalDateTime.now() : createdAt,
+                parseDateTime(fields.get("duedate")),
+                parsePriority(fields.get("priority")),
+                parseDateTime(fields.get("completedat")));
+        String recurrence = fields.get("recurrence");
+        if (recurrence != null && !recurrence.trim().isEmpty()) {
+            task.setRecurrence(Recurrence.parse(recurrence));
+        }
+        return task;
+    }
+
+    private static boolean parseBoolean(String value) {
+        if (value == null) {
+            return false;
+        }
+        switch (value.trim().toLowerCase()) {
+            case "":
+            case "false":
+            case "0":
+            case "no":
+            case "n":
+                return false;
+            case "true":
+            case "1":
+            case "yes":
+            case "y":
+                return true;
+            default:
+                throw new IllegalArgumentException("无效的完成状态: " + value);
+        }
+    }
+
+    private static Task.Priority parsePriority(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return Task.Priority.MEDIUM;
+        }
+        String trimmed = value.trim();
+        for (Task.Priority priority : Task.Priority.values()) {
+            if (priority.name().equalsIgnoreCase(trimmed) || priority.getDisplayName().equals(trimmed)) {
+                return priority;
+            }
+        }
+        throw new IllegalArgumentException("无效的优先级: " + value);
+    }
+
+    /**
+     * ISO格式（2024-01-31T18:00），也接受用空格分隔日期和时间
+     */
+    private static LocalDateTime parseDateTime(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value.trim().replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的时间: " + value);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
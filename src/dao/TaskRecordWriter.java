@@ -0,0 +1,102 @@
+package dao;
+
+import com.google.gson.Gson;
+import model.Task;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+/**
+ * TaskRecordWriter类 - 逐条把任务写入导出文件
+ * 通过文件通道和64KB缓冲区写出，不在内存中拼接整个文件
+ */
+public class TaskRecordWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,title,description,completed,priority,createdAt,dueDate,completedAt,recurrence";
+
+    private final Writer writer;
+    private final TaskRecordFormat format;
+    private final Gson gson = TaskDao.newGsonBuilder().create();
+    private final StringBuilder line = new StringBuilder(256);
+
+    private TaskRecordWriter(Writer writer, TaskRecordFormat format) throws IOException {
+        this.writer = writer;
+        this.format = format;
+        if (format == TaskRecordFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * 创建（或覆盖）导出文件
+     */
+    public static TaskRecordWriter open(Path file, TaskRecordFormat format) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+        return new TaskRecordWriter(writer, format);
+    }
+
+    public void write(Task task) throws IOException {
+        task.loadDetails();  // Gson直接读字段，懒加载任务要先补齐
+        if (format == TaskRecordFormat.JSONL) {
+            writer.write(gson.toJson(task));
+            writer.write('\n');
+            return;
+        }
+
+        line.setLength(0);
+        appendCsv(task.getId()).append(',');
+        appendCsv(task.getTitle()).append(',');
+        appendCsv(task.getDescription()).append(',');
+        line.append(task.isCompleted()).append(',');
+        line.append(task.getPriority()).append(',');
+        appendTime(task.getCreatedAt()).append(',');
+        appendTime(task.getDueDate()).append(',');
+        appendTime(task.getCompletedAt()).append(',');
+        if (task.getRecurrence() != null) {
+            line.append(task.getRecurrence().toCode());
+        }
+        line.append('\n');
+        writer.append(line);
+    }
+
+    /**
+     * 含逗号、引号或换行的字段用双引号括起，字段内的引号写两次
+     */
+    private StringBuilder appendCsv(String value) {
+        if (value == null) {
+            return line;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return line.append(value);
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        return line.append('"');
+    }
+
+    private StringBuilder appendTime(LocalDateTime time) {
+        return time == null ? line : line.append(time);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,181 @@
+package dao;
+
+import model.Task;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * WriteBehindSaver类 - 延迟合并保存
+ * 修改只标记为脏，由一个后台线程把一段时间内的多次修改合并成一次 saveTasks
+ */
+public class WriteBehindSaver {
+    private static final long DEFAULT_INTERVAL_MILLIS = 1000;
+    private static final int DEFAULT_BATCH_SIZE = 50;
+
+    /**
+     * 保存策略
+     */
+    public enum SavePolicy {
+        SYNC,      // 每次修改立即保存（原有行为）
+        BATCHED,   // 累计修改达到批量大小或到达时间间隔时保存
+        INTERVAL;  // 只按固定时间间隔保存
+
+        /**
+         * 从系统属性 todo.save.policy 读取策略，默认SYNC
+         */
+        public static SavePolicy fromProperty() {
+            String value = System.getProperty("todo.save.policy", "sync");
+            for (SavePolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(value)) {
+                    return policy;
+                }
+            }
+            return SYNC;
+        }
+    }
+
+    private final TaskDao taskDao;
+    private final Supplier<List<Task>> snapshot;
+    private final SavePolicy policy;
+    private final long intervalMillis;
+    private final int batchSize;
+    private final ScheduledExecutorService executor;
+
+    private final Object saveLock = new Object();
+    private final AtomicInteger dirtyCount = new AtomicInteger();
+    private final AtomicBoolean batchPending = new AtomicBoolean(false);
+
+    // 统计信息，用于衡量合并效果
+    private final AtomicLong changeCount = new AtomicLong();
+    private final AtomicLong saveCount = new AtomicLong();
+    private final AtomicLong saveNanos = new AtomicLong();
+
+    /**
+     * @param snapshot 返回任务列表的一致拷贝，在后台线程中调用
+     */
+    public WriteBehindSaver(TaskDao taskDao, Supplier<List<Task>> snapshot) {
+        this(taskDao, snapshot, SavePolicy.fromProperty(),
+                Long.getLong("todo.save.intervalMillis", DEFAULT_INTERVAL_MILLIS),
+                Integer.getInteger("todo.save.batchSize", DEFAULT_BATCH_SIZE));
+    }
+
+    public WriteBehindSaver(TaskDao taskDao, Supplier<List<Task>> snapshot,
+                            SavePolicy policy, long intervalMillis, int batchSize) {
+        this.taskDao = taskDao;
+        this.snapshot = snapshot;
+        this.policy = policy;
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+
+        if (policy == SavePolicy.SYNC) {
+            this.executor = null;
+        } else {
+            this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "task-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * 启动定时保存，同步保存策略下不需要调用
+     */
+    public void start() {
+        if (executor != null) {
+            executor.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 标记数据已修改
+     */
+    public void markDirty() {
+        changeCount.incrementAndGet();
+
+        if (policy == SavePolicy.SYNC) {
+            // 多个线程同时修改时，保存操作依次执行
+            synchronized (saveLock) {
+                save();
+            }
+            return;
+        }
+
+        int dirty = dirtyCount.incrementAndGet();
+        if (policy == SavePolicy.BATCHED && dirty >= batchSize && batchPending.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                batchPending.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * 有未保存的修改时保存一次
+     */
+    public void flush() {
+        if (dirtyCount.get() == 0) {
+            return;
+        }
+        synchronized (saveLock) {
+            if (dirtyCount.getAndSet(0) > 0) {
+                save();
+            }
+        }
+    }
+
+    /**
+     * 无论是否有修改都立即保存一次
+     */
+    public void saveNow() {
+        synchronized (saveLock) {
+            dirtyCount.set(0);
+            save();
+        }
+    }
+
+    private void save() {
+        long start = System.nanoTime();
+        // 后台保存不打印提示，避免打断控制台输入
+        taskDao.saveTasks(snapshot, policy == SavePolicy.SYNC);
+        record(start);
+    }
+
+    private void record(long start) {
+        saveCount.incrementAndGet();
+        saveNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    /**
+     * 保存剩余的修改并停止后台线程，退出程序前调用
+     */
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(intervalMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * 保存统计：修改次数、实际保存次数和平均耗时
+     */
+    public String getStatistics() {
+        long changes = changeCount.get();
+        long saves = saveCount.get();
+        long avgMillis = saves == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(saveNanos.get() / saves);
+        return String.format("保存策略: %s | 修改: %d | 实际保存: %d | 平均保存耗时: %d ms | 待保存: %d",
+                policy, changes, saves, avgMillis, dirtyCount.get());
+    }
+}
@@ -0,0 +1,226 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * TodoMetrics类 - 进程内的操作延迟和存储I/O指标
+ *
+ * 服务操作按 Operation 记录延迟直方图，TaskDao记录保存/加载耗时、写入字节数和任务数；
+ * 全进程共用一个实例，第一次使用时注册为JMX MBean（todo:type=Metrics）
+ */
+public class TodoMetrics implements TodoMetricsMBean {
+    /**
+     * 被统计的服务操作
+     */
+    public enum Operation {
+        ADD,
+        DELETE,
+        FIND,
+        LIST,
+        QUERY,
+        COMPLETE,
+        TOGGLE,
+        UPDATE,
+        SET_PRIORITY,
+        SET_DUE_DATE,
+        SET_RECURRENCE,
+        SEARCH,
+        DUE_QUERY,
+        STATISTICS,
+        CLEAR,
+        BULK
+    }
+
+    private static final String OBJECT_NAME = "todo:type=Metrics";
+    private static final TodoMetrics INSTANCE = new TodoMetrics();
+
+    static {
+        INSTANCE.register();
+    }
+
+    private final LatencyHistogram[] operations = new LatencyHistogram[Operation.values().length];
+    private final LatencyHistogram saves = new LatencyHistogram();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicInteger lastSavedTaskCount = new AtomicInteger();
+    private final AtomicLong journalAppends = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong lastLoadNanos = new AtomicLong();
+    private final AtomicInteger lastLoadedTaskCount = new AtomicInteger();
+
+    private TodoMetrics() {
+        for (int i = 0; i < operations.length; i++) {
+            operations[i] = new LatencyHistogram();
+        }
+    }
+
+    public static TodoMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    private void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // 同一个MBeanServer里已经有了（例如被其他类加载器加载过），沿用已有的
+        } catch (JMException e) {
+            System.err.println("[错误] 注册JMX指标失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 记录一次服务操作，startNanos 为操作开始时的 System.nanoTime()
+     */
+    public void record(Operation operation, long startNanos) {
+        operations[operation.ordinal()].recordSince(startNanos);
+    }
+
+    public LatencyHistogram getHistogram(Operation operation) {
+        return operations[operation.ordinal()];
+    }
+
+    /**
+     * 记录一次完整保存（快照、分片或压缩）
+     */
+    public void recordSave(long startNanos, long bytes, int taskCount) {
+        saves.recordSince(startNanos);
+        bytesWritten.addAndGet(bytes);
+        lastSavedTaskCount.set(taskCount);
+    }
+
+    /**
+     * 记录一条日志追加
+     */
+    public void recordJournalAppend(long bytes) {
+        journalAppends.incrementAndGet();
+        bytesWritten.addAndGet(bytes);
+    }
+
+    public void recordLoad(long startNanos, int taskCount) {
+        loadCount.incrementAndGet();
+        lastLoadNanos.set(System.nanoTime() - startNanos);
+        lastLoadedTaskCount.set(taskCount);
+    }
+
+    /**
+     * 控制台显示用的多行报告
+     */
+    public List<String> report() {
+        List<String> lines = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = getHistogram(operation);
+            if (histogram.getCount() > 0) {
+                lines.add(String.format("%-13s %s", operation, histogram.summary()));
+            }
+        }
+        if (lines.isEmpty()) {
+            lines.add("（暂无操作记录）");
+        }
+        lines.add(String.format("保存: %d 次 | 平均: %.1f ms | 最大: %.1f ms | 最近保存任务数: %d | 日志追加: %d 条 | 共写入: %s",
+                getSaveCount(), getSaveMeanMillis(), getSaveMaxMillis(), getLastSavedTaskCount(),
+                getJournalAppends(), formatBytes(getBytesWritten())));
+        lines.add(String.format("加载: %d 次 | 最近一次: %.1f ms, %d 个任务",
+                getLoadCount(), getLastLoadMillis(), getLastLoadedTaskCount()));
+        return lines;
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024));
+    }
+
+    @Override
+    public String[] getOperationLatencies() {
+        Operation[] values = Operation.values();
+        String[] lines = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            lines[i] = values[i] + " " + operations[i].summary();
+        }
+        return lines;
+    }
+
+    @Override
+    public long getOperationCount(String operation) {
+        return getHistogram(Operation.valueOf(operation)).getCount();
+    }
+
+    @Override
+    public double getOperationMeanMicros(String operation) {
+        return getHistogram(Operation.valueOf(operation)).getMeanNanos() / 1000.0;
+    }
+
+    @Override
+    public double getOperationPercentileMicros(String operation, double percentile) {
+        return getHistogram(Operation.valueOf(operation)).getPercentileNanos(percentile) / 1000.0;
+    }
+
+    @Override
+    public long getSaveCount() {
+        return saves.getCount();
+    }
+
+    @Override
+    public double getSaveMeanMillis() {
+        return saves.getMeanNanos() / 1_000_000.0;
+    }
+
+    @Override
+    public double getSaveMaxMillis() {
+        return saves.getMaxNanos() / 1_000_000.0;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    @Override
+    public int getLastSavedTaskCount() {
+        return lastSavedTaskCount.get();
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    @Override
+    public double getLastLoadMillis() {
+        return lastLoadNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public int getLastLoadedTaskCount() {
+        return lastLoadedTaskCount.get();
+    }
+
+    @Override
+    public long getJournalAppends() {
+        return journalAppends.get();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : operations) {
+            histogram.reset();
+        }
+        saves.reset();
+        bytesWritten.set(0);
+        lastSavedTaskCount.set(0);
+        journalAppends.set(0);
+        loadCount.set(0);
+        lastLoadNanos.set(0);
+        lastLoadedTaskCount.set(0);
+    }
+}
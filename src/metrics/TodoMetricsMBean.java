@@ -0,0 +1,40 @@
+package metrics;
+
+/**
+ * TodoMetrics的JMX管理接口，对象名 todo:type=Metrics
+ */
+public interface TodoMetricsMBean {
+    /**
+     * 每个服务操作一行延迟摘要
+     */
+    String[] getOperationLatencies();
+
+    long getOperationCount(String operation);
+
+    double getOperationMeanMicros(String operation);
+
+    double getOperationPercentileMicros(String operation, double percentile);
+
+    long getSaveCount();
+
+    double getSaveMeanMillis();
+
+    double getSaveMaxMillis();
+
+    long getBytesWritten();
+
+    int getLastSavedTaskCount();
+
+    long getLoadCount();
+
+    double getLastLoadMillis();
+
+    int getLastLoadedTaskCount();
+
+    long getJournalAppends();
+
+    /**
+     * 清零所有指标
+     */
+    void reset();
+}
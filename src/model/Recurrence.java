@@ -0,0 +1,156 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recurrence类 - 重复规则：每N天、每N周或每N个月
+ *
+ * 不可变。重复任务只保存规则和当前这一次的截止时间，下一次在需要时才生成，不预先展开整个序列
+ */
+public final class Recurrence {
+    private static final Pattern CODE = Pattern.compile("EVERY_(\\d+)_(DAYS|WEEKS|MONTHS)");
+    private static final Pattern DISPLAY = Pattern.compile("每(\\d+)(天|周|个月|月)");
+
+    /**
+     * 重复的时间单位
+     */
+    public enum Unit {
+        DAY("天", "DAILY", "DAYS"),
+        WEEK("周", "WEEKLY", "WEEKS"),
+        MONTH("月", "MONTHLY", "MONTHS");
+
+        private final String displayName;
+        private final String singleCode;
+        private final String pluralCode;
+
+        Unit(String displayName, String singleCode, String pluralCode) {
+            this.displayName = displayName;
+            this.singleCode = singleCode;
+            this.pluralCode = pluralCode;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    public static final Recurrence DAILY = new Recurrence(Unit.DAY, 1);
+    public static final Recurrence WEEKLY = new Recurrence(Unit.WEEK, 1);
+    public static final Recurrence MONTHLY = new Recurrence(Unit.MONTH, 1);
+
+    private final Unit unit;
+    private final int interval;
+
+    private Recurrence(Unit unit, int interval) {
+        this.unit = unit;
+        this.interval = interval;
+    }
+
+    /**
+     * @param interval 间隔，至少为1
+     */
+    public static Recurrence every(int interval, Unit unit) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("重复间隔必须大于0: " + interval);
+        }
+        return new Recurrence(unit, interval);
+    }
+
+    public static Recurrence everyDays(int days) {
+        return every(days, Unit.DAY);
+    }
+
+    public Unit getUnit() {
+        return unit;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * 上一次截止时间之后的下一次截止时间（按月重复时，月末日期按目标月份的天数截断）
+     */
+    public LocalDateTime next(LocalDateTime previous) {
+        switch (unit) {
+            case WEEK:
+                return previous.plusWeeks(interval);
+            case MONTH:
+                return previous.plusMonths(interval);
+            default:
+                return previous.plusDays(interval);
+        }
+    }
+
+    /**
+     * 从previous开始，第一个晚于now的截止时间；错过的各次直接跳过，不逐个补建
+     */
+    public LocalDateTime nextAfter(LocalDateTime previous, LocalDateTime now) {
+        LocalDateTime next = next(previous);
+        while (!next.isAfter(now)) {
+            next = next(next);
+        }
+        return next;
+    }
+
+    /**
+     * 存储用的编码：DAILY、WEEKLY、MONTHLY 或 EVERY_3_DAYS 这样的形式
+     */
+    public String toCode() {
+        return interval == 1 ? unit.singleCode : "EVERY_" + interval + "_" + unit.pluralCode;
+    }
+
+    /**
+     * 解析存储编码（不区分大小写）或显示名称（每天、每周、每月、每3天、每2周、每2个月）
+     * @throws IllegalArgumentException 无法识别时
+     */
+    public static Recurrence parse(String text) {
+        String value = text.trim();
+        String upper = value.toUpperCase(Locale.ROOT);
+        for (Unit unit : Unit.values()) {
+            if (upper.equals(unit.singleCode) || value.equals("每" + unit.displayName)) {
+                return new Recurrence(unit, 1);
+            }
+        }
+        if (value.equals("每个月")) {
+            return MONTHLY;
+        }
+        Matcher code = CODE.matcher(upper);
+        if (code.matches()) {
+            return every(Integer.parseInt(code.group(1)), Unit.valueOf(code.group(2).substring(0, code.group(2).length() - 1)));
+        }
+        Matcher display = DISPLAY.matcher(value);
+        if (display.matches()) {
+            String unit = display.group(2);
+            return every(Integer.parseInt(display.group(1)),
+                    unit.equals("天") ? Unit.DAY : unit.equals("周") ? Unit.WEEK : Unit.MONTH);
+        }
+        throw new IllegalArgumentException("无效的重复规则: " + text);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Recurrence)) {
+            return false;
+        }
+        Recurrence other = (Recurrence) o;
+        return unit == other.unit && interval == other.interval;
+    }
+
+    @Override
+    public int hashCode() {
+        return unit.hashCode() * 31 + interval;
+    }
+
+    /**
+     * 显示名称，例如 每天、每3天、每2个月
+     */
+    @Override
+    public String toString() {
+        String unitName = unit == Unit.MONTH && interval > 1 ? "个月" : unit.displayName;
+        return interval == 1 ? "每" + unitName : "每" + interval + unitName;
+    }
+}
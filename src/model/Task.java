@@ -9,12 +9,15 @@ import java.util.UUID;
  */
 public class Task {
     private String id;              // 任务唯一标识
-    private String title;           // 任务标题
-    private String description;     // 任务描述
-    private boolean completed;      // 完成状态
+    private volatile String title;           // 任务标题
+    private volatile String description;     // 任务描述
+    private volatile boolean completed;      // 完成状态
+    private volatile LocalDateTime completedAt;  // 完成时间（未完成时为null）
     private LocalDateTime createdAt; // 创建时间
-    private LocalDateTime dueDate;   // 截止日期（可选）
-    private Priority priority;       // 优先级
+    private volatile LocalDateTime dueDate;   // 截止日期（可选）
+    private volatile Priority priority;       // 优先级
+    private volatile Recurrence recurrence;   // 重复规则（可选），只有序列中尚未生成下一次的那个任务带有规则
+    private transient volatile DetailLoader detailLoader;  // 懒加载时读取标题、描述和创建时间
 
      /**
      * 优先级枚举
@@ -35,6 +38,13 @@ public class Task {
         }
     }
 
+    /**
+     * 懒加载任务的详情读取器，返回完整解析的任务
+     */
+    public interface DetailLoader {
+        Task load();
+    }
+
      /**
      * 构造函数 - 创建新任务
      */
@@ -52,6 +62,15 @@ public class Task {
      */
     public Task(String id, String title, String description, boolean completed,
                 LocalDateTime createdAt, LocalDateTime dueDate, Priority priority) {
+        this(id, title, description, completed, createdAt, dueDate, priority, null);
+    }
+
+    /**
+     * 完整构造函数 - 带完成时间，用于导入和恢复
+     */
+    public Task(String id, String title, String description, boolean completed,
+                LocalDateTime createdAt, LocalDateTime dueDate, Priority priority, LocalDateTime completedAt) {
+        this.completedAt = completed ? completedAt : null;
         this.id = id;
         this.title = title;
         this.description = description;
@@ -61,24 +80,100 @@ public class Task {
         this.priority = priority;
     }
 
-    // Getter和Setter方法
+    /**
+     * 创建懒加载任务 - 只带索引字段，标题、描述和创建时间在第一次访问时才读取
+     */
+    public static Task lazy(String id, boolean completed, LocalDateTime completedAt, Priority priority,
+                            LocalDateTime dueDate, Recurrence recurrence, DetailLoader loader) {
+        Task task = new Task(id, null, null, completed, null, dueDate, priority);
+        task.completedAt = completedAt;
+        task.recurrence = recurrence;
+        task.detailLoader = loader;
+        return task;
+    }
+
+    /**
+     * 详情是否已经加载
+     */
+    public boolean isLoaded() {
+        return detailLoader == null;
+    }
+
+    /**
+     * 加载详情（对非懒加载任务无操作）
+     */
+    public void loadDetails() {
+        if (detailLoader != null) {
+            synchronized (this) {
+                DetailLoader loader = detailLoader;
+                if (loader != null) {
+                    Task full = loader.load();
+                    this.title = full.title;
+                    this.description = full.description;
+                    this.createdAt = full.createdAt;
+                    this.detailLoader = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 返回详情完整、可以直接序列化的任务：已加载的返回自身；
+     * 懒加载的读出详情生成一个带当前索引字段的副本，本任务仍不加载，写出大量任务时不会把详情都留在内存中
+     */
+    public Task withDetails() {
+        DetailLoader loader = detailLoader;
+        if (loader == null) {
+            return this;
+        }
+        Task full = loader.load();
+        Task copy = new Task(id, full.title, full.description, completed, full.createdAt, dueDate, priority, completedAt);
+        copy.recurrence = recurrence;
+        return copy;
+    }
+
+    /**
+     * 尚未加载时返回详情读取器，已加载时返回null；用于在不加载的情况下记下详情的位置
+     */
+    public DetailLoader getPendingDetails() {
+        return detailLoader;
+    }
+
+    /**
+     * 详情所在的文件被重写后，让尚未加载的任务改从新位置读取；已加载的任务不受影响
+     */
+    public void relocateDetails(DetailLoader loader) {
+        if (detailLoader != null) {
+            synchronized (this) {
+                if (detailLoader != null) {
+                    detailLoader = loader;
+                }
+            }
+        }
+    }
+
+    // Getter和Setter方法（字段为volatile，TodoService的读操作不加锁）
     public String getId() {
         return id;
     }
 
     public String getTitle() {
+        loadDetails();
         return title;
     }
 
     public void setTitle(String title) {
+        loadDetails();
         this.title = title;
     }
 
     public String getDescription() {
+        loadDetails();
         return description;
     }
 
     public void setDescription(String description) {
+        loadDetails();
         this.description = description;
     }
 
@@ -87,10 +182,29 @@ public class Task {
     }
 
     public void setCompleted(boolean completed) {
+        if (completed != this.completed) {
+            this.completedAt = completed ? LocalDateTime.now() : null;
+        }
         this.completed = completed;
     }
 
+    /**
+     * 按原样设置完成状态和完成时间，用于恢复或复制任务
+     */
+    public void setCompleted(boolean completed, LocalDateTime completedAt) {
+        this.completedAt = completed ? completedAt : null;
+        this.completed = completed;
+    }
+
+    /**
+     * 完成时间，未完成或旧数据中没有记录时为null
+     */
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
     public LocalDateTime getCreatedAt() {
+        loadDetails();
         return createdAt;
     }
 
@@ -110,11 +224,22 @@ public class Task {
         this.priority = priority;
     }
 
+    /**
+     * 重复规则，不重复时为null
+     */
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    public void setRecurrence(Recurrence recurrence) {
+        this.recurrence = recurrence;
+    }
+
     /**
      * 切换任务完成状态
      */
     public void toggleCompleted() {
-        this.completed = !this.completed;
+        setCompleted(!this.completed);
     }
 
     /**
@@ -133,10 +258,11 @@ public class Task {
      */
     @Override
     public String toString() {
+        loadDetails();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
         StringBuilder sb = new StringBuilder();
         
-        sb.append("[ID: ").append(id.substring(0, 8)).append("...] ");
+        sb.append("[ID: ").append(id, 0, Math.min(8, id.length())).append("...] ");
         sb.append(completed ? "[✓] " : "[ ] ");
         sb.append(title);
         sb.append(" (优先级: ").append(priority.getDisplayName()).append(")");
@@ -153,6 +279,10 @@ public class Task {
                 sb.append(" [已过期]");
             }
         }
+
+        if (recurrence != null) {
+            sb.append("\n  重复: ").append(recurrence);
+        }
         
         return sb.toString();
     }
@@ -161,10 +291,24 @@ public class Task {
      * 简短显示格式
      */
     public String toShortString() {
-        return String.format("%s %s - %s [%s]",
-                completed ? "[✓]" : "[ ]",
-                id.substring(0, 8),
-                title,
-                priority.getDisplayName());
+        return appendShortString(new StringBuilder(64)).toString();
+    }
+
+    /**
+     * 把简短显示格式追加到sb，批量输出时避免逐行 String.format
+     */
+    public StringBuilder appendShortString(StringBuilder sb) {
+        loadDetails();
+        sb.append(completed ? "[✓] " : "[ ] ")
+                .append(id, 0, Math.min(8, id.length()))  // 导入的任务ID可能不足8位
+                .append(" - ")
+                .append(title)
+                .append(" [")
+                .append(priority.getDisplayName())
+                .append(']');
+        if (recurrence != null) {
+            sb.append(" (").append(recurrence).append(')');
+        }
+        return sb;
     }
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+package model;
+
+import java.time.LocalDateTime;
+
+/**
+ * TaskView类 - 任务在某一时刻的只读副本
+ *
+ * 字段全部为final，创建后不再变化。快照读取和撤销记录使用它，
+ * 调用方拿到的是确定的一份数据，也不能绕过TodoService修改任务
+ */
+public final class TaskView {
+    private final String id;
+    private final String title;
+    private final String description;
+    private final boolean completed;
+    private final LocalDateTime completedAt;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime dueDate;
+    private final Task.Priority priority;
+    private final Recurrence recurrence;
+
+    private TaskView(String id, String title, String description, boolean completed, LocalDateTime completedAt,
+                     LocalDateTime createdAt, LocalDateTime dueDate, Task.Priority priority, Recurrence recurrence) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.completed = completed;
+        this.completedAt = completedAt;
+        this.createdAt = createdAt;
+        this.dueDate = dueDate;
+        this.priority = priority;
+        this.recurrence = recurrence;
+    }
+
+    /**
+     * 复制任务当前的内容（懒加载的任务会先读取详情）
+     */
+    public static TaskView of(Task task) {
+        return new TaskView(task.getId(), task.getTitle(), task.getDescription(), task.isCompleted(),
+                task.getCompletedAt(), task.getCreatedAt(), task.getDueDate(), task.getPriority(), task.getRecurrence());
+    }
+
+    /**
+     * 创建内容相同的新任务，用于恢复已删除的任务
+     */
+    public Task toTask() {
+        Task task = new Task(id, title, description, completed, createdAt, dueDate, priority, completedAt);
+        task.setRecurrence(recurrence);
+        return task;
+    }
+
+    /**
+     * 把可修改的字段和完成时间写回task（ID和创建时间不变）
+     */
+    public void copyTo(Task task) {
+        task.setTitle(title);
+        task.setDescription(description);
+        task.setCompleted(completed, completedAt);
+        task.setDueDate(dueDate);
+        task.setPriority(priority);
+        task.setRecurrence(recurrence);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getDueDate() {
+        return dueDate;
+    }
+
+    public Task.Priority getPriority() {
+        return priority;
+    }
+
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    public boolean isOverdue() {
+        return dueDate != null && !completed && LocalDateTime.now().isAfter(dueDate);
+    }
+
+    @Override
+    public String toString() {
+        return toTask().toString();
+    }
+
+    public String toShortString() {
+        return toTask().toShortString();
+    }
+}
@@ -0,0 +1,32 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 输入的任务ID前缀匹配到多个任务时抛出
+ */
+public class AmbiguousTaskIdException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String prefix;
+    private final ArrayList<String> candidates;
+
+    public AmbiguousTaskIdException(String prefix, List<String> candidates) {
+        super("ID前缀 " + prefix + " 匹配到多个任务，请输入更长的ID");
+        this.prefix = prefix;
+        this.candidates = new ArrayList<>(candidates);
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * 部分匹配到的完整ID，用于提示用户
+     */
+    public List<String> getCandidates() {
+        return Collections.unmodifiableList(candidates);
+    }
+}
@@ -0,0 +1,261 @@
+package service;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * BitmapIndex类 - 完成状态和优先级的位图索引
+ *
+ * 每个任务占一个稠密的槽位，槽位按添加顺序分配，因此按槽位顺序遍历就是任务列表的顺序；
+ * 删除只清掉槽位，空槽超过一半时整体压缩一次，保持顺序不变。
+ * 每个优先级一个位图，完成状态一个位图，另有一个位图标记槽位上是否有任务
+ */
+class BitmapIndex {
+    private static final int MIN_COMPACT_SLOTS = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private Task[] slots = new Task[64];
+    private int size;  // 已分配的槽位数（含空槽）
+    private int live;  // 有任务的槽位数
+    private long[] liveBits = new long[1];
+    private long[] completedBits = new long[1];
+    private long[][] priorityBits = new long[Task.Priority.values().length][1];
+
+    void add(Task task) {
+        lock.writeLock().lock();
+        try {
+            if (size == slots.length) {
+                grow();
+            }
+            int slot = size++;
+            slots[slot] = task;
+            slotById.put(task.getId(), slot);
+            set(liveBits, slot);
+            setAttributes(slot, task);
+            live++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Task task) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.remove(task.getId());
+            if (slot == null) {
+                return;
+            }
+            slots[slot] = null;
+            clear(liveBits, slot);
+            clearAttributes(slot);
+            live--;
+            if (size >= MIN_COMPACT_SLOTS && live < size / 2) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 任务的完成状态或优先级变化后调用
+     */
+    void update(Task task) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(task.getId());
+            if (slot != null) {
+                clearAttributes(slot);
+                setAttributes(slot, task);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            slotById.clear();
+            slots = new Task[64];
+            size = 0;
+            live = 0;
+            liveBits = new long[1];
+            completedBits = new long[1];
+            priorityBits = new long[Task.Priority.values().length][1];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按任务列表顺序返回满足条件的全部任务
+     */
+    List<Task> select(TaskFilter filter) {
+        lock.readLock().lock();
+        try {
+            return collect(filter.evaluate(this), 0, Integer.MAX_VALUE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 满足条件的任务中的一页，总数和本页内容出自同一次求值
+     */
+    TaskPage page(TaskFilter filter, int pageIndex, int pageSize) {
+        lock.readLock().lock();
+        try {
+            long[] words = filter.evaluate(this);
+            List<Task> page = collect(words, (long) pageIndex * pageSize, pageSize);
+            return new TaskPage(page, pageIndex, pageSize, cardinality(words));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 满足条件的任务数
+     */
+    int count(TaskFilter filter) {
+        lock.readLock().lock();
+        try {
+            return cardinality(filter.evaluate(this));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按槽位顺序取出位图中的任务，跳过前skip个，最多limit个
+     */
+    private List<Task> collect(long[] words, long skip, int limit) {
+        List<Task> result = new ArrayList<>(Math.min(limit, 256));
+        long seen = 0;
+        for (int w = 0; w < words.length && result.size() < limit; w++) {
+            long word = words[w];
+            int bits = Long.bitCount(word);
+            if (seen + bits <= skip) {
+                seen += bits;  // 整个字都在跳过范围内
+                continue;
+            }
+            while (word != 0 && result.size() < limit) {
+                int slot = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if (seen++ >= skip) {
+                    result.add(slots[slot]);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int cardinality(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    // 以下方法供 TaskFilter 在读锁内求值
+
+    /**
+     * 逐个检查words中的任务，清掉不满足predicate的位
+     */
+    long[] retain(long[] words, Predicate<Task> predicate) {
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            while (word != 0) {
+                long lowest = word & -word;
+                word ^= lowest;
+                if (!predicate.test(slots[(w << 6) + Long.numberOfTrailingZeros(lowest)])) {
+                    words[w] &= ~lowest;
+                }
+            }
+        }
+        return words;
+    }
+
+    long[] liveWords() {
+        return liveBits;
+    }
+
+    long[] copyLive() {
+        return Arrays.copyOf(liveBits, liveBits.length);
+    }
+
+    long[] copyCompleted() {
+        return Arrays.copyOf(completedBits, completedBits.length);
+    }
+
+    long[] copyPriority(Task.Priority priority) {
+        if (priority == null) {
+            return new long[liveBits.length];
+        }
+        long[] bits = priorityBits[priority.ordinal()];
+        return Arrays.copyOf(bits, bits.length);
+    }
+
+    private void setAttributes(int slot, Task task) {
+        if (task.isCompleted()) {
+            set(completedBits, slot);
+        }
+        if (task.getPriority() != null) {
+            set(priorityBits[task.getPriority().ordinal()], slot);
+        }
+    }
+
+    private void clearAttributes(int slot) {
+        clear(completedBits, slot);
+        for (long[] bits : priorityBits) {
+            clear(bits, slot);
+        }
+    }
+
+    /**
+     * 槽位数组和所有位图一起扩容，保证位图长度始终相同
+     */
+    private void grow() {
+        slots = Arrays.copyOf(slots, slots.length * 2);
+        int words = (slots.length + 63) >>> 6;
+        liveBits = Arrays.copyOf(liveBits, words);
+        completedBits = Arrays.copyOf(completedBits, words);
+        for (int i = 0; i < priorityBits.length; i++) {
+            priorityBits[i] = Arrays.copyOf(priorityBits[i], words);
+        }
+    }
+
+    /**
+     * 去掉空槽，按原顺序重新分配槽位并重建位图
+     */
+    private void compact() {
+        Task[] remaining = new Task[live];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (slots[i] != null) {
+                remaining[n++] = slots[i];
+            }
+        }
+        clear();
+        for (Task task : remaining) {
+            add(task);  // 写锁可重入
+        }
+    }
+
+    private static void set(long[] words, int bit) {
+        words[bit >>> 6] |= 1L << bit;
+    }
+
+    private static void clear(long[] words, int bit) {
+        words[bit >>> 6] &= ~(1L << bit);
+    }
+}
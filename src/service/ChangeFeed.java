@@ -0,0 +1,195 @@
+package service;
+
+import model.TaskView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * ChangeFeed类 - 任务变更流，基于固定容量的环形缓冲区
+ *
+ * 发布不加锁：先用原子计数器领取序号，再写入对应槽位；每个事件带着自己的序号，
+ * 读取时据此判断槽位是尚未写入、正是要读的事件，还是已经被新事件覆盖。
+ * 订阅者各自保存读取位置，互不影响。消费太慢、要读的事件已被覆盖时不阻塞写入方，
+ * 而是通知订阅者重新同步：跳到最新位置并重新读取全量数据（例如 TodoService.snapshot()）
+ */
+public class ChangeFeed {
+    private final AtomicReferenceArray<TaskEvent> ring;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();  // 下一个要领取的序号
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Object signal = new Object();
+
+    /**
+     * 一次读取的结果
+     */
+    public static class Batch {
+        private final List<TaskEvent> events;
+        private final long nextSequence;
+        private final boolean resyncRequired;
+
+        Batch(List<TaskEvent> events, long nextSequence, boolean resyncRequired) {
+            this.events = events;
+            this.nextSequence = nextSequence;
+            this.resyncRequired = resyncRequired;
+        }
+
+        /**
+         * 按序号排列的事件
+         */
+        public List<TaskEvent> getEvents() {
+            return events;
+        }
+
+        /**
+         * 下次读取的起始序号
+         */
+        public long getNextSequence() {
+            return nextSequence;
+        }
+
+        /**
+         * 请求的事件已被覆盖，调用方需要重新读取全量数据，之后从 nextSequence 继续
+         */
+        public boolean isResyncRequired() {
+            return resyncRequired;
+        }
+    }
+
+    /**
+     * 订阅者，保存自己的读取位置；单个订阅者不要在多个线程中同时使用
+     */
+    public class Subscription {
+        private long cursor;
+
+        private Subscription(long cursor) {
+            this.cursor = cursor;
+        }
+
+        /**
+         * 取出最多max个新事件，没有新事件时返回空的结果，不等待
+         */
+        public Batch poll(int max) {
+            Batch batch = read(cursor, max);
+            cursor = batch.getNextSequence();
+            return batch;
+        }
+
+        /**
+         * 取出最多max个新事件，没有新事件时最多等待timeout
+         */
+        public Batch poll(int max, long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            Batch batch = poll(max);
+            while (batch.getEvents().isEmpty() && !batch.isResyncRequired()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return batch;
+                }
+                awaitPublish(cursor, remaining);
+                batch = poll(max);
+            }
+            return batch;
+        }
+
+        /**
+         * 下次读取的起始序号
+         */
+        public long getCursor() {
+            return cursor;
+        }
+    }
+
+    /**
+     * @param capacity 缓冲区容量，向上取整为2的幂
+     */
+    ChangeFeed(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.capacity = size;
+        this.mask = size - 1;
+    }
+
+    /**
+     * 发布一个事件；调用方在修改任务的锁内调用，同一任务的事件顺序与修改顺序一致
+     */
+    void publish(TaskEvent.Type type, TaskView task) {
+        long sequence = next.getAndIncrement();
+        ring.set((int) sequence & mask, new TaskEvent(sequence, type, task, System.currentTimeMillis()));
+        if (waiting.get() > 0) {
+            synchronized (signal) {
+                signal.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 从最新位置开始订阅
+     */
+    public Subscription subscribe() {
+        return new Subscription(next.get());
+    }
+
+    /**
+     * 从指定序号开始订阅，例如断线重连后从上次的位置继续
+     */
+    public Subscription subscribe(long fromSequence) {
+        return new Subscription(fromSequence);
+    }
+
+    /**
+     * 下一个事件的序号，新的订阅者或重新同步后从这里开始读
+     */
+    public long getLatestSequence() {
+        return next.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 读取序号从from开始、已经写入的事件，最多max个
+     * 供无状态的调用方（例如HTTP轮询）使用，读取位置由调用方保存
+     */
+    public Batch read(long from, int max) {
+        long head = next.get();
+        if (from > head || head - from > capacity) {
+            return new Batch(Collections.emptyList(), head, true);
+        }
+
+        List<TaskEvent> events = new ArrayList<>((int) Math.min(max, head - from));
+        long sequence = from;
+        while (events.size() < max && sequence < head) {
+            TaskEvent event = ring.get((int) sequence & mask);
+            if (event == null || event.getSequence() < sequence) {
+                break;  // 序号已领取但还没写入，下次再读
+            }
+            if (event.getSequence() > sequence) {
+                return new Batch(Collections.emptyList(), next.get(), true);  // 已被覆盖
+            }
+            events.add(event);
+            sequence++;
+        }
+        return new Batch(events, sequence, false);
+    }
+
+    private void awaitPublish(long cursor, long timeoutNanos) throws InterruptedException {
+        waiting.incrementAndGet();
+        try {
+            synchronized (signal) {
+                if (next.get() == cursor) {
+                    TimeUnit.NANOSECONDS.timedWait(signal, timeoutNanos);
+                }
+            }
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+}
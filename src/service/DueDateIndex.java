@@ -0,0 +1,128 @@
+package service;
+
+import model.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * DueDateIndex类 - 按截止时间排序的未完成任务索引
+ *
+ * 过期数量用扫描线维护：截止时间早于 sweptUntil 的任务已计入 overdueCount，
+ * 查询时只需把 [sweptUntil, now) 之间新过期的任务加进来，时间只会向前走，
+ * 每个任务最多被扫过一次
+ */
+class DueDateIndex {
+    private final NavigableMap<LocalDateTime, Set<Task>> byDueDate = new TreeMap<>();
+    private LocalDateTime sweptUntil = LocalDateTime.MIN;
+    private int overdueCount;
+
+    /**
+     * 加入任务（已完成或没有截止时间的任务不入索引）
+     */
+    synchronized void add(Task task) {
+        add(task, task.getDueDate(), task.isCompleted());
+    }
+
+    /**
+     * 按修改前的取值移除任务
+     */
+    synchronized void remove(Task task, TaskState state) {
+        remove(task, state.dueDate, state.completed);
+    }
+
+    /**
+     * 任务的截止时间或完成状态变化后更新索引
+     */
+    synchronized void update(Task task, TaskState before) {
+        remove(task, before.dueDate, before.completed);
+        add(task, task.getDueDate(), task.isCompleted());
+    }
+
+    synchronized void clear() {
+        byDueDate.clear();
+        overdueCount = 0;
+    }
+
+    /**
+     * 截止时间早于now的未完成任务数
+     */
+    synchronized int countOverdue(LocalDateTime now) {
+        if (now.isAfter(sweptUntil)) {
+            for (Set<Task> due : byDueDate.subMap(sweptUntil, true, now, false).values()) {
+                overdueCount += due.size();
+            }
+            sweptUntil = now;
+        }
+        return overdueCount;
+    }
+
+    /**
+     * 截止时间早于now的未完成任务，按截止时间排序
+     */
+    synchronized List<Task> overdue(LocalDateTime now) {
+        return flatten(byDueDate.headMap(now, false), Integer.MAX_VALUE);
+    }
+
+    /**
+     * 截止时间在 [from, to] 之间的未完成任务，按截止时间排序
+     */
+    synchronized List<Task> dueBetween(LocalDateTime from, LocalDateTime to) {
+        if (from.isAfter(to)) {
+            return new ArrayList<>();
+        }
+        return flatten(byDueDate.subMap(from, true, to, true), Integer.MAX_VALUE);
+    }
+
+    /**
+     * 从now起最先到期的limit个未完成任务
+     */
+    synchronized List<Task> nextDue(LocalDateTime now, int limit) {
+        return flatten(byDueDate.tailMap(now, true), limit);
+    }
+
+    private List<Task> flatten(NavigableMap<LocalDateTime, Set<Task>> range, int limit) {
+        List<Task> result = new ArrayList<>();
+        for (Set<Task> due : range.values()) {
+            for (Task task : due) {
+                if (result.size() == limit) {
+                    return result;
+                }
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    private void add(Task task, LocalDateTime dueDate, boolean completed) {
+        if (dueDate == null || completed) {
+            return;
+        }
+        byDueDate.computeIfAbsent(dueDate, key -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                .add(task);
+        if (dueDate.isBefore(sweptUntil)) {
+            overdueCount++;
+        }
+    }
+
+    private void remove(Task task, LocalDateTime dueDate, boolean completed) {
+        if (dueDate == null || completed) {
+            return;
+        }
+        Set<Task> due = byDueDate.get(dueDate);
+        if (due != null && due.remove(task)) {
+            if (due.isEmpty()) {
+                byDueDate.remove(dueDate);
+            }
+            if (dueDate.isBefore(sweptUntil)) {
+                overdueCount--;
+            }
+        }
+    }
+}
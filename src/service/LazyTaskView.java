@@ -0,0 +1,68 @@
+package service;
+
+import model.Recurrence;
+import model.Task;
+import model.TaskView;
+
+import java.time.LocalDateTime;
+
+/**
+ * LazyTaskView类 - 快照中尚未加载详情的任务
+ *
+ * 建立快照或修改索引字段时不为懒加载任务读取详情，只保存索引字段和任务当时的详情读取器；
+ * 第一次读到这个槽位时才读取详情生成 TaskView，之后复用。
+ * 快照字典树的槽位里存放 TaskView 或 LazyTaskView，下面的静态方法统一处理两种情况
+ */
+final class LazyTaskView {
+    private final String id;
+    private final boolean completed;
+    private final LocalDateTime completedAt;
+    private final LocalDateTime dueDate;
+    private final Task.Priority priority;
+    private final Recurrence recurrence;
+    private final Task.DetailLoader loader;
+    private volatile TaskView resolved;
+
+    private LazyTaskView(Task task, Task.DetailLoader loader) {
+        this.id = task.getId();
+        this.completed = task.isCompleted();
+        this.completedAt = task.getCompletedAt();
+        this.dueDate = task.getDueDate();
+        this.priority = task.getPriority();
+        this.recurrence = task.getRecurrence();
+        this.loader = loader;
+    }
+
+    /**
+     * 任务当前内容的槽位项：已加载的任务直接复制为 TaskView，懒加载的任务不读取详情
+     */
+    static Object entryOf(Task task) {
+        Task.DetailLoader loader = task.getPendingDetails();
+        return loader == null ? TaskView.of(task) : new LazyTaskView(task, loader);
+    }
+
+    static String idOf(Object entry) {
+        return entry instanceof LazyTaskView ? ((LazyTaskView) entry).id : ((TaskView) entry).getId();
+    }
+
+    static TaskView resolve(Object entry) {
+        return entry instanceof LazyTaskView ? ((LazyTaskView) entry).resolve() : (TaskView) entry;
+    }
+
+    /**
+     * 读取详情，索引字段用建立槽位时的取值。详情在任务加载前不会被修改，读取器读到的就是当时的内容
+     */
+    private TaskView resolve() {
+        TaskView view = resolved;
+        if (view == null) {
+            Task full = loader.load();
+            full.setCompleted(completed, completedAt);
+            full.setDueDate(dueDate);
+            full.setPriority(priority);
+            full.setRecurrence(recurrence);
+            view = TaskView.of(full);
+            resolved = view;
+        }
+        return view;
+    }
+}
@@ -0,0 +1,122 @@
+package service;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * QueryEngine类 - 对筛选后的候选任务执行排序和截取
+ *
+ * 有数量上限时用大小为k的堆选出前k个，O(n log k)，不对全部候选排序；
+ * 不限数量且候选很多时可以用并行流排序。
+ * 排序结果与对候选列表做稳定排序再截取的结果完全一致（相同的任务按原列表顺序）
+ */
+class QueryEngine {
+    private static final int PARALLEL_THRESHOLD = 10_000;
+
+    private QueryEngine() {
+    }
+
+    /**
+     * @param candidates 满足筛选条件的任务，按任务列表顺序
+     */
+    static List<Task> sortAndLimit(List<Task> candidates, TaskQuery query) {
+        Comparator<Task> order = query.getOrder();
+        int limit = query.getLimit();
+        int n = candidates.size();
+
+        if (order == null) {
+            return limit > 0 && limit < n ? new ArrayList<>(candidates.subList(0, limit)) : candidates;
+        }
+        if (limit > 0 && limit < n) {
+            return topK(candidates, order, limit);
+        }
+        if (query.isParallel() && n >= PARALLEL_THRESHOLD) {
+            // 并行流的 sorted 对有序流是稳定的
+            return candidates.parallelStream().sorted(order).collect(Collectors.toList());
+        }
+        candidates.sort(order);
+        return candidates;
+    }
+
+    /**
+     * 用最大堆保留当前最好的k个候选的下标，堆顶是其中最差的一个
+     * 比较相同的任务按下标排序，保证结果和稳定排序一致
+     */
+    static List<Task> topK(List<Task> candidates, Comparator<Task> order, int k) {
+        Task[] items = candidates.toArray(new Task[0]);
+        IndexOrder byOrder = (a, b) -> {
+            int c = order.compare(items[a], items[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        };
+
+        int[] heap = new int[k];
+        int size = 0;
+        for (int i = 0; i < items.length; i++) {
+            if (size < k) {
+                heap[size] = i;
+                siftUp(heap, size++, byOrder);
+            } else if (byOrder.compare(i, heap[0]) < 0) {
+                heap[0] = i;
+                siftDown(heap, size, byOrder);
+            }
+        }
+
+        // 依次取出堆顶（最差的）放到末尾，得到从好到差的顺序
+        Task[] result = new Task[size];
+        for (int end = size - 1; end >= 0; end--) {
+            result[end] = items[heap[0]];
+            heap[0] = heap[end];
+            siftDown(heap, end, byOrder);
+        }
+        List<Task> list = new ArrayList<>(size);
+        for (Task task : result) {
+            list.add(task);
+        }
+        return list;
+    }
+
+    /**
+     * 按下标比较候选任务，避免装箱
+     */
+    private interface IndexOrder {
+        int compare(int a, int b);
+    }
+
+    private static void siftUp(int[] heap, int index, IndexOrder order) {
+        int item = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (order.compare(item, heap[parent]) <= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = item;
+    }
+
+    private static void siftDown(int[] heap, int size, IndexOrder order) {
+        if (size == 0) {
+            return;
+        }
+        int item = heap[0];
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && order.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (order.compare(item, heap[child]) >= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = item;
+    }
+}
@@ -0,0 +1,117 @@
+package service;
+
+import model.Recurrence;
+import model.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * RecurrenceIndex类 - 带重复规则的任务，按应当生成下一次任务的时间排序
+ *
+ * 未完成的任务在截止时间到达时生成下一次，已完成的任务立即生成。
+ * 每条规则只有一个任务在索引中，大小与规则数成正比。
+ * 最早的时间单独保存在volatile字段中，定时检查是否有到期的规则不需要加锁
+ */
+class RecurrenceIndex {
+    private final NavigableMap<LocalDateTime, Set<Task>> byTrigger = new TreeMap<>();
+    private volatile LocalDateTime earliest;
+
+    synchronized void add(Task task) {
+        add(task, trigger(task.getRecurrence(), task.isCompleted(), task.getCompletedAt(), task.getDueDate()));
+    }
+
+    /**
+     * 按修改前的取值移除任务
+     */
+    synchronized void remove(Task task, TaskState state) {
+        remove(task, trigger(state.recurrence, state.completed, state.completedAt, state.dueDate));
+    }
+
+    /**
+     * 任务的重复规则、截止时间或完成状态变化后更新索引
+     */
+    synchronized void update(Task task, TaskState before) {
+        remove(task, before);
+        add(task);
+    }
+
+    synchronized void clear() {
+        byTrigger.clear();
+        earliest = null;
+    }
+
+    /**
+     * 是否有规则需要在now之前生成下一次任务（不加锁）
+     */
+    boolean hasDue(LocalDateTime now) {
+        LocalDateTime first = earliest;
+        return first != null && !first.isAfter(now);
+    }
+
+    /**
+     * 需要在now之前生成下一次任务的所有任务
+     */
+    synchronized List<Task> due(LocalDateTime now) {
+        List<Task> result = new ArrayList<>();
+        for (Set<Task> tasks : byTrigger.headMap(now, true).values()) {
+            result.addAll(tasks);
+        }
+        return result;
+    }
+
+    /**
+     * 任务当前是否需要在now之前生成下一次任务
+     */
+    static boolean isDue(Task task, LocalDateTime now) {
+        LocalDateTime trigger = trigger(task.getRecurrence(), task.isCompleted(), task.getCompletedAt(), task.getDueDate());
+        return trigger != null && !trigger.isAfter(now);
+    }
+
+    synchronized int size() {
+        int size = 0;
+        for (Set<Task> tasks : byTrigger.values()) {
+            size += tasks.size();
+        }
+        return size;
+    }
+
+    /**
+     * 没有规则或没有截止时间的任务返回null（不入索引）
+     */
+    private static LocalDateTime trigger(Recurrence recurrence, boolean completed, LocalDateTime completedAt,
+                                         LocalDateTime dueDate) {
+        if (recurrence == null) {
+            return null;
+        }
+        if (completed) {
+            return completedAt != null ? completedAt : LocalDateTime.MIN;
+        }
+        return dueDate;
+    }
+
+    private void add(Task task, LocalDateTime trigger) {
+        if (trigger == null) {
+            return;
+        }
+        byTrigger.computeIfAbsent(trigger, key -> Collections.newSetFromMap(new IdentityHashMap<>())).add(task);
+        earliest = byTrigger.firstKey();
+    }
+
+    private void remove(Task task, LocalDateTime trigger) {
+        if (trigger == null) {
+            return;
+        }
+        Set<Task> tasks = byTrigger.get(trigger);
+        if (tasks != null && tasks.remove(task) && tasks.isEmpty()) {
+            byTrigger.remove(trigger);
+        }
+        earliest = byTrigger.isEmpty() ? null : byTrigger.firstKey();
+    }
+}
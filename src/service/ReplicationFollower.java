@@ -0,0 +1,200 @@
+package service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import dao.TaskDao;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ReplicationFollower类 - 从节点：连接主节点，把收到的变更应用到本地的TodoService
+ *
+ * 每批变更先写入本地存储，再把复制位置（主节点epoch + 下一个序号）写入 replica.offset，
+ * 重启后从该位置继续；进程在两步之间退出时，重复应用的变更结果相同。
+ * 断线后自动重连。从节点只用于读取，修改应发送到主节点
+ */
+public class ReplicationFollower implements Closeable {
+    private static final String OFFSET_FILE = "replica.offset";
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final int READ_TIMEOUT_MILLIS = 5000;  // 主节点每秒发送心跳，超时说明连接已失效
+    private static final long RETRY_MILLIS = 2000;
+
+    private final TodoService todoService;
+    private final InetSocketAddress primary;
+    private final Path offsetFile;
+    private final Gson gson = TaskDao.newGsonBuilder().create();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private volatile boolean connected;
+    private volatile Socket socket;
+    private volatile String epoch;
+    private volatile long nextSequence;
+    private volatile long primarySequence;
+
+    /**
+     * @param dataDir 本节点的数据目录，复制位置保存在其中
+     */
+    public ReplicationFollower(TodoService todoService, String host, int port, Path dataDir) {
+        this.todoService = todoService;
+        this.primary = new InetSocketAddress(host, port);
+        this.offsetFile = dataDir.resolve(OFFSET_FILE);
+        loadOffset();
+        this.worker = new Thread(this::run, "replication-follower");
+        worker.setDaemon(true);
+    }
+
+    public void start() {
+        worker.start();
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * 已应用到的位置（下一个要应用的序号）
+     */
+    public long getAppliedSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * 落后主节点的变更数（根据最近一次心跳）
+     */
+    public long getLag() {
+        return Math.max(0, primarySequence - nextSequence);
+    }
+
+    private void run() {
+        while (running) {
+            try (Socket s = new Socket()) {
+                socket = s;
+                s.connect(primary, CONNECT_TIMEOUT_MILLIS);
+                s.setSoTimeout(READ_TIMEOUT_MILLIS);
+                s.setTcpNoDelay(true);
+                connected = true;
+                System.out.println("[系统] 已连接主节点 " + primary.getHostString() + ":" + primary.getPort()
+                        + "，从序号 " + nextSequence + " 继续");
+                replicate(s);
+            } catch (SocketTimeoutException e) {
+                if (running) {
+                    System.err.println("[错误] 主节点无响应，" + RETRY_MILLIS / 1000 + " 秒后重连");
+                }
+            } catch (IOException | JsonParseException e) {
+                if (running) {
+                    System.err.println("[错误] 与主节点的连接断开: " + e.getMessage() + "，" + RETRY_MILLIS / 1000 + " 秒后重连");
+                }
+            } finally {
+                connected = false;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void replicate(Socket s) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+        Writer out = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8);
+        out.write(gson.toJson(ReplicationMessage.hello(epoch, nextSequence)));
+        out.write('\n');
+        out.flush();
+
+        String line;
+        while (running && (line = in.readLine()) != null) {
+            ReplicationMessage message = gson.fromJson(line, ReplicationMessage.class);
+            switch (message.type) {
+                case SNAPSHOT:
+                    List<TaskEvent> events = new ArrayList<>(message.count + 1);
+                    events.add(new TaskEvent(message.sequence, TaskEvent.Type.CLEARED, null, System.currentTimeMillis()));
+                    for (int i = 0; i < message.count; i++) {
+                        ReplicationMessage task = gson.fromJson(in.readLine(), ReplicationMessage.class);
+                        if (task == null || task.type != ReplicationMessage.Type.TASK) {
+                            throw new IOException("全量同步数据不完整");
+                        }
+                        events.add(new TaskEvent(message.sequence, TaskEvent.Type.ADDED, task.task, System.currentTimeMillis()));
+                    }
+                    todoService.applyReplicated(events);
+                    saveOffset(message.epoch, message.sequence);
+                    primarySequence = message.sequence;
+                    System.out.println("[系统] 已从主节点同步全部 " + message.count + " 个任务");
+                    break;
+                case EVENTS:
+                    if (message.events.isEmpty() || message.events.get(0).getSequence() != nextSequence) {
+                        throw new IOException("变更序号不连续，重新连接");
+                    }
+                    todoService.applyReplicated(message.events);
+                    saveOffset(epoch, message.sequence);
+                    break;
+                case HEARTBEAT:
+                    primarySequence = message.sequence;
+                    break;
+                default:
+                    throw new IOException("未知的消息类型: " + message.type);
+            }
+        }
+        if (running) {
+            throw new IOException("主节点关闭了连接");
+        }
+    }
+
+    private void loadOffset() {
+        try {
+            if (Files.exists(offsetFile)) {
+                String[] parts = Files.readString(offsetFile, StandardCharsets.UTF_8).trim().split("\\s+");
+                epoch = parts[0];
+                nextSequence = Long.parseLong(parts[1]);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[错误] 复制位置读取失败，将重新全量同步: " + e.getMessage());
+            epoch = null;
+            nextSequence = 0;
+        }
+    }
+
+    /**
+     * 先写临时文件再原子替换，避免留下写了一半的位置
+     */
+    private void saveOffset(String newEpoch, long sequence) throws IOException {
+        Path temp = offsetFile.resolveSibling(OFFSET_FILE + ".tmp");
+        Files.writeString(temp, newEpoch + " " + sequence + "\n", StandardCharsets.UTF_8);
+        Files.move(temp, offsetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        epoch = newEpoch;
+        nextSequence = sequence;
+    }
+
+    /**
+     * 停止复制并断开连接
+     */
+    @Override
+    public void close() {
+        running = false;
+        Socket s = socket;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException e) {
+                // 已经关闭
+            }
+        }
+        worker.interrupt();
+    }
+}
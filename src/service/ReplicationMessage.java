@@ -0,0 +1,65 @@
+package service;
+
+import model.TaskView;
+
+import java.util.List;
+
+/**
+ * ReplicationMessage类 - 主从复制连接上的一条消息，每条消息是一行JSON
+ *
+ *   HELLO      从节点 → 主节点：epoch + sequence，表示已应用到哪里
+ *   SNAPSHOT   主节点 → 从节点：全量同步开始，epoch + sequence（之后的变更从这里开始）+ count
+ *   TASK       主节点 → 从节点：全量同步中的一个任务，共count条
+ *   EVENTS     主节点 → 从节点：一批变更，sequence为下一批的起始序号
+ *   HEARTBEAT  主节点 → 从节点：没有新变更，sequence为主节点的最新序号
+ */
+class ReplicationMessage {
+    enum Type {
+        HELLO, SNAPSHOT, TASK, EVENTS, HEARTBEAT
+    }
+
+    Type type;
+    String epoch;
+    long sequence;
+    int count;
+    TaskView task;
+    List<TaskEvent> events;
+
+    static ReplicationMessage hello(String epoch, long sequence) {
+        ReplicationMessage message = new ReplicationMessage(Type.HELLO);
+        message.epoch = epoch;
+        message.sequence = sequence;
+        return message;
+    }
+
+    static ReplicationMessage snapshot(String epoch, long sequence, int count) {
+        ReplicationMessage message = new ReplicationMessage(Type.SNAPSHOT);
+        message.epoch = epoch;
+        message.sequence = sequence;
+        message.count = count;
+        return message;
+    }
+
+    static ReplicationMessage task(TaskView task) {
+        ReplicationMessage message = new ReplicationMessage(Type.TASK);
+        message.task = task;
+        return message;
+    }
+
+    static ReplicationMessage events(List<TaskEvent> events, long nextSequence) {
+        ReplicationMessage message = new ReplicationMessage(Type.EVENTS);
+        message.events = events;
+        message.sequence = nextSequence;
+        return message;
+    }
+
+    static ReplicationMessage heartbeat(long latestSequence) {
+        ReplicationMessage message = new ReplicationMessage(Type.HEARTBEAT);
+        message.sequence = latestSequence;
+        return message;
+    }
+
+    private ReplicationMessage(Type type) {
+        this.type = type;
+    }
+}
@@ -0,0 +1,174 @@
+package service;
+
+import com.google.gson.Gson;
+import dao.TaskDao;
+import model.TaskView;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReplicationPrimary类 - 主节点：通过TCP把变更流发送给从节点
+ *
+ * 从节点连接后先报告自己已应用到的位置（epoch + 序号）。位置仍在变更流的缓冲区内时从该序号继续发送，
+ * 否则（主节点重启过、从节点落后太多或第一次连接）先发送全量任务，再从全量对应的序号继续。
+ * 每个从节点由一个线程发送，慢的从节点不影响写入和其他从节点。
+ * 从节点断线期间能补发的变更数取决于变更流容量（系统属性 todo.feed.capacity）
+ */
+public class ReplicationPrimary implements Closeable {
+    private static final int MAX_EVENTS_PER_MESSAGE = 1024;
+    private static final long HEARTBEAT_MILLIS = 1000;
+
+    private final TodoService todoService;
+    private final ChangeFeed changeFeed;
+    private final String epoch = UUID.randomUUID().toString();  // 序号只在本进程内有效，重启后重新全量同步
+    private final Gson gson = TaskDao.newGsonBuilder().create();
+    private final ServerSocket serverSocket;
+    private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+    private volatile boolean running = true;
+
+    public ReplicationPrimary(TodoService todoService, int port) throws IOException {
+        this.todoService = todoService;
+        this.changeFeed = todoService.getChangeFeed();
+        this.serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(port));
+    }
+
+    public void start() {
+        Thread acceptor = new Thread(this::acceptLoop, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        System.out.println("[系统] 复制服务已启动，端口 " + getPort());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * 当前连接的从节点数
+     */
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                followers.add(socket);
+                Thread sender = new Thread(() -> serve(socket), "replication-" + socket.getRemoteSocketAddress());
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("[错误] 接受从节点连接失败: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        String follower = String.valueOf(socket.getRemoteSocketAddress());
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            ReplicationMessage hello = gson.fromJson(in.readLine(), ReplicationMessage.class);
+            if (hello == null || hello.type != ReplicationMessage.Type.HELLO) {
+                System.err.println("[错误] 从节点 " + follower + " 协议错误，已断开");
+                return;
+            }
+
+            ChangeFeed.Subscription subscription;
+            if (epoch.equals(hello.epoch)) {
+                subscription = changeFeed.subscribe(hello.sequence);
+                System.out.println("[系统] 从节点 " + follower + " 已连接，从序号 " + hello.sequence + " 继续");
+            } else {
+                subscription = sendSnapshot(out);
+                System.out.println("[系统] 从节点 " + follower + " 已连接，已发送全量数据");
+            }
+
+            while (running) {
+                ChangeFeed.Batch batch = subscription.poll(MAX_EVENTS_PER_MESSAGE, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+                if (batch.isResyncRequired()) {
+                    System.out.println("[系统] 从节点 " + follower + " 落后过多，重新发送全量数据");
+                    subscription = sendSnapshot(out);
+                } else if (batch.getEvents().isEmpty()) {
+                    send(out, ReplicationMessage.heartbeat(changeFeed.getLatestSequence()));
+                } else {
+                    send(out, ReplicationMessage.events(batch.getEvents(), batch.getNextSequence()));
+                }
+            }
+        } catch (IOException e) {
+            if (running) {
+                System.out.println("[系统] 从节点 " + follower + " 已断开: " + e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.remove(socket);
+        }
+    }
+
+    /**
+     * 发送全量任务，返回从全量对应位置开始的订阅
+     * 先记下序号再取快照：快照可能已包含之后的部分变更，从节点重复应用结果相同
+     */
+    private ChangeFeed.Subscription sendSnapshot(Writer out) throws IOException {
+        long sequence = changeFeed.getLatestSequence();
+        TaskListSnapshot snapshot = todoService.snapshot();
+        send(out, ReplicationMessage.snapshot(epoch, sequence, snapshot.size()), false);
+        for (TaskView task : snapshot) {
+            send(out, ReplicationMessage.task(task), false);
+        }
+        out.flush();
+        return changeFeed.subscribe(sequence);
+    }
+
+    private void send(Writer out, ReplicationMessage message) throws IOException {
+        send(out, message, true);
+    }
+
+    private void send(Writer out, ReplicationMessage message, boolean flush) throws IOException {
+        out.write(gson.toJson(message));
+        out.write('\n');
+        if (flush) {
+            out.flush();
+        }
+    }
+
+    /**
+     * 停止接受连接并断开所有从节点
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // 已经关闭
+        }
+        for (Socket socket : followers) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // 已经关闭
+            }
+        }
+    }
+}
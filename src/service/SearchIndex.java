@@ -0,0 +1,146 @@
+package service;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * SearchIndex类 - 任务标题和描述的倒排索引
+ *
+ * 每个词记录包含它的任务及加权词频（标题中出现一次计3，描述中出现一次计1），
+ * 查询要求包含所有查询词，按 加权词频 × idf 之和排序。
+ * 第一次搜索时才建立索引，避免懒加载模式下启动就读出所有任务详情；
+ * 建立之后随增删改增量更新
+ */
+class SearchIndex {
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final Map<String, Map<Task, Integer>> postings = new HashMap<>();
+    private final Map<Task, Set<String>> termsByTask = new IdentityHashMap<>();
+    private boolean built;
+
+    /**
+     * 第一次使用时用现有任务建立索引
+     */
+    synchronized void ensureBuilt(Iterable<Task> tasks) {
+        if (built) {
+            return;
+        }
+        for (Task task : tasks) {
+            index(task);
+        }
+        built = true;
+    }
+
+    synchronized void add(Task task) {
+        if (built) {
+            index(task);
+        }
+    }
+
+    synchronized void remove(Task task) {
+        if (built) {
+            unindex(task);
+        }
+    }
+
+    /**
+     * 标题或描述修改后重新索引
+     */
+    synchronized void update(Task task) {
+        if (built) {
+            index(task);
+        }
+    }
+
+    synchronized void clear() {
+        postings.clear();
+        termsByTask.clear();
+    }
+
+    /**
+     * 按相关度返回最多limit个结果
+     */
+    synchronized List<Task> search(String query, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(Tokenizer.forQuery(query));
+        List<Task> result = new ArrayList<>();
+        if (queryTerms.isEmpty()) {
+            return result;
+        }
+
+        // 从文档最少的词开始求交集
+        List<Map<Task, Integer>> lists = new ArrayList<>();
+        for (String term : queryTerms) {
+            Map<Task, Integer> list = postings.get(term);
+            if (list == null) {
+                return result;
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        int documentCount = termsByTask.size();
+        Map<Task, Double> scores = new IdentityHashMap<>();
+        for (Task task : lists.get(0).keySet()) {
+            double score = 0;
+            for (Map<Task, Integer> list : lists) {
+                Integer frequency = list.get(task);
+                if (frequency == null) {
+                    score = -1;
+                    break;
+                }
+                score += frequency * Math.log(1.0 + (double) documentCount / list.size());
+            }
+            if (score >= 0) {
+                scores.put(task, score);
+            }
+        }
+
+        scores.entrySet().stream()
+                .sorted((a, b) -> Double.compare(b.getValue(), a.getValue()))
+                .limit(limit)
+                .forEach(entry -> result.add(entry.getKey()));
+        return result;
+    }
+
+    private void index(Task task) {
+        unindex(task);
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : Tokenizer.forIndex(task.getTitle())) {
+            frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String term : Tokenizer.forIndex(task.getDescription())) {
+            frequencies.merge(term, DESCRIPTION_WEIGHT, Integer::sum);
+        }
+
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), key -> new IdentityHashMap<>())
+                    .put(task, entry.getValue());
+        }
+        termsByTask.put(task, frequencies.keySet());
+    }
+
+    private void unindex(Task task) {
+        Set<String> terms = termsByTask.remove(task);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Task, Integer> list = postings.get(term);
+            if (list != null) {
+                list.remove(task);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+}
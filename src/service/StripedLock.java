@@ -0,0 +1,42 @@
+package service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * StripedLock类 - 按任务ID分段的锁
+ * 不同任务大概率落在不同分段上，可以并行修改
+ */
+class StripedLock {
+    private final ReentrantLock[] locks;
+
+    StripedLock(int stripes) {
+        this.locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 获取任务ID对应的锁
+     */
+    ReentrantLock forId(String id) {
+        int hash = id.hashCode();
+        hash ^= (hash >>> 16);  // UUID字符串的低位分布不够均匀，混入高位
+        return locks[(hash & 0x7fffffff) % locks.length];
+    }
+
+    /**
+     * 按固定顺序获取所有分段锁，用于清空等全局操作
+     */
+    void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+}
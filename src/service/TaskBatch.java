@@ -0,0 +1,206 @@
+package service;
+
+import metrics.TodoMetrics.Operation;
+import model.Recurrence;
+import model.Task;
+import model.TaskView;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * TaskBatch类 - 一个批处理事务，由 TodoService.beginBatch() 创建
+ *
+ * 修改先记录在批处理中，作用在任务的副本上（后面的命令能看到前面的结果），任务列表、索引和变更流都看不到；
+ * commit() 时在服务的锁内按顺序应用到任务上，整批只写一次存储、只记一条撤销记录。
+ * 不提交直接丢弃即为放弃，不会影响其他调用方在此期间的修改。
+ * 不是线程安全的，一个批处理只由一个线程使用
+ */
+public class TaskBatch {
+    private static final int MAX_CANDIDATES = 5;
+
+    /**
+     * 一条记录的修改，change为null表示删除
+     */
+    static class Step {
+        final String id;
+        final Operation operation;
+        final Consumer<Task> change;
+
+        Step(String id, Operation operation, Consumer<Task> change) {
+            this.id = id;
+            this.operation = operation;
+            this.change = change;
+        }
+    }
+
+    private final TodoService service;
+    private final TaskIdIndex idIndex;
+    private final NavigableMap<String, Task> working = new TreeMap<>();  // 本批涉及的任务副本和新增的任务
+    private final Set<String> added = new LinkedHashSet<>();
+    private final Set<String> deleted = new HashSet<>();  // 本批删除的已有任务
+    private final List<Step> steps = new ArrayList<>();
+    private int commandCount;
+    private boolean committed;
+
+    TaskBatch(TodoService service, TaskIdIndex idIndex) {
+        this.service = service;
+        this.idIndex = idIndex;
+    }
+
+    public Task addTask(String title, String description) {
+        Task task = new Task(title, description);
+        working.put(task.getId(), task);
+        added.add(task.getId());
+        commandCount++;
+        return task;
+    }
+
+    /**
+     * @throws AmbiguousTaskIdException ID前缀匹配到多个任务时
+     */
+    public boolean deleteTask(String id) {
+        Task task = resolve(id);
+        if (task == null) {
+            return false;
+        }
+        working.remove(task.getId());
+        if (!added.remove(task.getId())) {
+            deleted.add(task.getId());
+            steps.add(new Step(task.getId(), Operation.DELETE, null));
+        }
+        commandCount++;
+        return true;
+    }
+
+    public boolean completeTask(String id) {
+        return modify(id, Operation.COMPLETE, task -> task.setCompleted(true));
+    }
+
+    public boolean toggleTaskStatus(String id) {
+        return modify(id, Operation.TOGGLE, Task::toggleCompleted);
+    }
+
+    public boolean updateTask(String id, String newTitle, String newDescription) {
+        return modify(id, Operation.UPDATE, TodoService.updateChange(newTitle, newDescription));
+    }
+
+    public boolean setPriority(String id, Task.Priority priority) {
+        return modify(id, Operation.SET_PRIORITY, task -> task.setPriority(priority));
+    }
+
+    public boolean setDueDate(String id, LocalDateTime dueDate) {
+        return modify(id, Operation.SET_DUE_DATE, task -> task.setDueDate(dueDate));
+    }
+
+    public boolean setRecurrence(String id, Recurrence rule) {
+        return modify(id, Operation.SET_RECURRENCE, TodoService.recurrenceChange(rule));
+    }
+
+    /**
+     * 已记录的命令数
+     */
+    public int size() {
+        return commandCount;
+    }
+
+    /**
+     * 一次性应用本批全部修改；提交前已被其他调用方删除的任务，对它的修改跳过
+     * @throws IllegalStateException 重复提交时
+     */
+    public void commit() {
+        if (committed) {
+            throw new IllegalStateException("批处理已经提交");
+        }
+        committed = true;
+        service.commitBatch(this);
+    }
+
+    List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * 本批新增的任务（已包含本批对它们的修改），按添加顺序
+     */
+    List<Task> getAddedTasks() {
+        List<Task> tasks = new ArrayList<>(added.size());
+        for (String id : added) {
+            tasks.add(working.get(id));
+        }
+        return tasks;
+    }
+
+    private boolean modify(String id, Operation operation, Consumer<Task> change) {
+        Task task = resolve(id);
+        if (task == null) {
+            return false;
+        }
+        change.accept(task);
+        if (!added.contains(task.getId())) {
+            steps.add(new Step(task.getId(), operation, change));
+        }
+        commandCount++;
+        return true;
+    }
+
+    /**
+     * 按ID前缀在本批新增的任务和已有任务中查找（不含本批已删除的），完整ID优先；
+     * 已有任务第一次用到时复制一份
+     */
+    private Task resolve(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return null;
+        }
+        Task exact = working.get(prefix);
+        if (exact == null && !deleted.contains(prefix)) {
+            exact = idIndex.get(prefix);
+        }
+        if (exact != null) {
+            return workingCopy(exact);
+        }
+
+        Set<String> matches = new TreeSet<>();
+        for (String id : working.tailMap(prefix, true).keySet()) {
+            if (!id.startsWith(prefix) || matches.size() == MAX_CANDIDATES) {
+                break;
+            }
+            matches.add(id);
+        }
+        int live = 0;
+        for (String id : idIndex.idsFrom(prefix)) {
+            if (!id.startsWith(prefix) || live == MAX_CANDIDATES) {
+                break;
+            }
+            if (!deleted.contains(id)) {
+                matches.add(id);
+                live++;
+            }
+        }
+        if (matches.isEmpty()) {
+            return null;
+        }
+        if (matches.size() > 1) {
+            List<String> candidates = new ArrayList<>(matches);
+            throw new AmbiguousTaskIdException(prefix, candidates.subList(0, Math.min(MAX_CANDIDATES, candidates.size())));
+        }
+        String id = matches.iterator().next();
+        Task task = working.get(id);
+        return task != null ? task : workingCopy(idIndex.get(id));
+    }
+
+    private Task workingCopy(Task task) {
+        if (task == null) {
+            return null;  // 查找期间被其他调用方删除
+        }
+        return working.computeIfAbsent(task.getId(), id -> TaskView.of(task).toTask());
+    }
+}
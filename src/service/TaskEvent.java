@@ -0,0 +1,86 @@
+package service;
+
+import model.TaskView;
+
+/**
+ * TaskEvent类 - 变更流中的一条任务变更
+ *
+ * 事件带有变更后任务的只读副本（删除时为删除前的副本），
+ * 按任务ID覆盖或删除即可应用，重复应用结果相同
+ */
+public final class TaskEvent {
+    /**
+     * 变更类型
+     */
+    public enum Type {
+        ADDED("添加"),
+        DELETED("删除"),
+        UPDATED("修改"),
+        STATUS_CHANGED("状态变更"),
+        PRIORITY_CHANGED("优先级变更"),
+        DUE_DATE_CHANGED("截止时间变更"),
+        CLEARED("清空");
+
+        private final String displayName;
+
+        Type(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final TaskView task;
+    private final long timestamp;
+
+    TaskEvent(long sequence, Type type, TaskView task, long timestamp) {
+        this.sequence = sequence;
+        this.type = type;
+        this.task = task;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * 序号，从0开始连续递增
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * 变更涉及的任务ID，清空事件为null
+     */
+    public String getTaskId() {
+        return task == null ? null : task.getId();
+    }
+
+    /**
+     * 变更后的任务（删除事件为删除前的任务），清空事件为null
+     */
+    public TaskView getTask() {
+        return task;
+    }
+
+    /**
+     * 发生时间（毫秒时间戳）
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        if (task == null) {
+            return "#" + sequence + " " + type.getDisplayName();
+        }
+        return "#" + sequence + " " + type.getDisplayName() + " " + task.toShortString();
+    }
+}
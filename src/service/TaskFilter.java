@@ -0,0 +1,273 @@
+package service;
+
+import model.Task;
+
+import java.time.LocalDateTime;
+import java.util.function.Predicate;
+
+/**
+ * TaskFilter类 - 筛选任务的条件
+ *
+ * 条件可以用 and / or / negate 组合，例如：
+ *   TaskFilter.priority(Task.Priority.HIGH).and(TaskFilter.incomplete())
+ * 完成状态和优先级条件在位图索引上按64位一组做与、或运算，不逐个检查任务；
+ * 其他字段的条件（截止时间、标题等）逐个检查，与索引条件 and 组合时只检查索引筛剩的任务
+ */
+public abstract class TaskFilter {
+    private static final TaskFilter ALL = new TaskFilter() {
+        @Override
+        long[] evaluate(BitmapIndex index) {
+            return index.copyLive();
+        }
+
+        @Override
+        public boolean test(Task task) {
+            return true;
+        }
+    };
+
+    private static final TaskFilter COMPLETED = new TaskFilter() {
+        @Override
+        long[] evaluate(BitmapIndex index) {
+            return index.copyCompleted();
+        }
+
+        @Override
+        public boolean test(Task task) {
+            return task.isCompleted();
+        }
+    };
+
+    TaskFilter() {
+    }
+
+    /**
+     * 在位图索引上求值，返回满足条件的槽位位图（调用方可以修改返回的数组）
+     * 调用时已持有索引的读锁
+     */
+    abstract long[] evaluate(BitmapIndex index);
+
+    /**
+     * 对单个任务求值，结果与 evaluate 一致
+     */
+    public abstract boolean test(Task task);
+
+    /**
+     * 在已有的候选位图上进一步筛选，直接修改并返回candidates
+     */
+    long[] refine(BitmapIndex index, long[] candidates) {
+        long[] words = evaluate(index);
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] &= words[i];
+        }
+        return candidates;
+    }
+
+    /**
+     * 是否可以完全由位图求值，不需要逐个检查任务
+     */
+    boolean isIndexed() {
+        return true;
+    }
+
+    /**
+     * 所有任务
+     */
+    public static TaskFilter all() {
+        return ALL;
+    }
+
+    /**
+     * 已完成的任务
+     */
+    public static TaskFilter completed() {
+        return COMPLETED;
+    }
+
+    /**
+     * 未完成的任务
+     */
+    public static TaskFilter incomplete() {
+        return COMPLETED.negate();
+    }
+
+    /**
+     * 指定优先级的任务
+     */
+    public static TaskFilter priority(Task.Priority priority) {
+        return new TaskFilter() {
+            @Override
+            long[] evaluate(BitmapIndex index) {
+                return index.copyPriority(priority);
+            }
+
+            @Override
+            public boolean test(Task task) {
+                return task.getPriority() == priority;
+            }
+        };
+    }
+
+    /**
+     * 优先级为其中任意一个的任务
+     */
+    public static TaskFilter anyPriority(Task.Priority... priorities) {
+        TaskFilter filter = null;
+        for (Task.Priority priority : priorities) {
+            filter = filter == null ? priority(priority) : filter.or(priority(priority));
+        }
+        return filter == null ? ALL.negate() : filter;
+    }
+
+    /**
+     * 截止时间早于time的任务（不含没有截止时间的任务）
+     */
+    public static TaskFilter dueBefore(LocalDateTime time) {
+        return matching(task -> task.getDueDate() != null && task.getDueDate().isBefore(time));
+    }
+
+    /**
+     * 截止时间晚于time的任务（不含没有截止时间的任务）
+     */
+    public static TaskFilter dueAfter(LocalDateTime time) {
+        return matching(task -> task.getDueDate() != null && task.getDueDate().isAfter(time));
+    }
+
+    /**
+     * 设置了截止时间的任务
+     */
+    public static TaskFilter hasDueDate() {
+        return matching(task -> task.getDueDate() != null);
+    }
+
+    /**
+     * 创建时间晚于time的任务
+     */
+    public static TaskFilter createdAfter(LocalDateTime time) {
+        return matching(task -> task.getCreatedAt() != null && task.getCreatedAt().isAfter(time));
+    }
+
+    /**
+     * 标题包含keyword的任务（不区分大小写）
+     */
+    public static TaskFilter titleContains(String keyword) {
+        String lower = keyword.toLowerCase();
+        return matching(task -> task.getTitle() != null && task.getTitle().toLowerCase().contains(lower));
+    }
+
+    /**
+     * 任意条件，查询时逐个检查
+     */
+    public static TaskFilter matching(Predicate<Task> predicate) {
+        return new TaskFilter() {
+            @Override
+            long[] evaluate(BitmapIndex index) {
+                return index.retain(index.copyLive(), predicate);
+            }
+
+            @Override
+            long[] refine(BitmapIndex index, long[] candidates) {
+                return index.retain(candidates, predicate);
+            }
+
+            @Override
+            boolean isIndexed() {
+                return false;
+            }
+
+            @Override
+            public boolean test(Task task) {
+                return predicate.test(task);
+            }
+        };
+    }
+
+    /**
+     * 同时满足两个条件
+     * 先求能用位图计算的一侧，另一侧只在它的结果上筛选
+     */
+    public TaskFilter and(TaskFilter other) {
+        TaskFilter self = this;
+        boolean indexed = self.isIndexed() && other.isIndexed();
+        TaskFilter first = self.isIndexed() || !other.isIndexed() ? self : other;
+        TaskFilter second = first == self ? other : self;
+        return new TaskFilter() {
+            @Override
+            long[] evaluate(BitmapIndex index) {
+                return second.refine(index, first.evaluate(index));
+            }
+
+            @Override
+            long[] refine(BitmapIndex index, long[] candidates) {
+                return second.refine(index, first.refine(index, candidates));
+            }
+
+            @Override
+            boolean isIndexed() {
+                return indexed;
+            }
+
+            @Override
+            public boolean test(Task task) {
+                return self.test(task) && other.test(task);
+            }
+        };
+    }
+
+    /**
+     * 满足任意一个条件
+     */
+    public TaskFilter or(TaskFilter other) {
+        TaskFilter self = this;
+        boolean indexed = self.isIndexed() && other.isIndexed();
+        return new TaskFilter() {
+            @Override
+            long[] evaluate(BitmapIndex index) {
+                long[] words = self.evaluate(index);
+                long[] otherWords = other.evaluate(index);
+                for (int i = 0; i < words.length; i++) {
+                    words[i] |= otherWords[i];
+                }
+                return words;
+            }
+
+            @Override
+            boolean isIndexed() {
+                return indexed;
+            }
+
+            @Override
+            public boolean test(Task task) {
+                return self.test(task) || other.test(task);
+            }
+        };
+    }
+
+    /**
+     * 不满足该条件（只在现存任务中取反）
+     */
+    public TaskFilter negate() {
+        TaskFilter self = this;
+        return new TaskFilter() {
+            @Override
+            long[] evaluate(BitmapIndex index) {
+                long[] words = self.evaluate(index);
+                long[] live = index.liveWords();
+                for (int i = 0; i < words.length; i++) {
+                    words[i] = ~words[i] & live[i];
+                }
+                return words;
+            }
+
+            @Override
+            boolean isIndexed() {
+                return self.isIndexed();
+            }
+
+            @Override
+            public boolean test(Task task) {
+                return !self.test(task);
+            }
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package service;
+
+import model.TaskView;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * TaskHistory类 - 撤销/重做记录
+ *
+ * 每条记录保存修改前后涉及任务的只读副本，撤销时把这些任务恢复成修改前的样子，重做反之。
+ * 只保存被修改的任务，不保存整个列表；记录数超过上限时丢弃最早的
+ */
+class TaskHistory {
+    /**
+     * 一次修改：before 中有而 after 中没有的任务是被删除的，反之是新增的，两边都有的是被修改的
+     */
+    static class Change {
+        final String description;
+        final List<TaskView> before;
+        final List<TaskView> after;
+
+        Change(String description, List<TaskView> before, List<TaskView> after) {
+            this.description = description;
+            this.before = before;
+            this.after = after;
+        }
+
+        boolean involves(Set<String> ids) {
+            for (TaskView view : before) {
+                if (ids.contains(view.getId())) {
+                    return true;
+                }
+            }
+            for (TaskView view : after) {
+                if (ids.contains(view.getId())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        static Change added(TaskView view) {
+            return new Change("添加任务: " + view.getTitle(), Collections.emptyList(), Collections.singletonList(view));
+        }
+
+        static Change removed(TaskView view) {
+            return new Change("删除任务: " + view.getTitle(), Collections.singletonList(view), Collections.emptyList());
+        }
+
+        static Change modified(TaskView before, TaskView after) {
+            return new Change("修改任务: " + after.getTitle(), Collections.singletonList(before), Collections.singletonList(after));
+        }
+    }
+
+    private final int limit;
+    private final Deque<Change> undo = new ArrayDeque<>();
+    private final Deque<Change> redo = new ArrayDeque<>();
+
+    TaskHistory(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * 上限为0时不记录，调用方可以省去创建副本的开销
+     */
+    boolean isEnabled() {
+        return limit > 0;
+    }
+
+    /**
+     * 记录一次新的修改，之前撤销的记录不能再重做
+     */
+    synchronized void record(Change change) {
+        if (!isEnabled()) {
+            return;
+        }
+        undo.push(change);
+        if (undo.size() > limit) {
+            undo.removeLast();
+        }
+        redo.clear();
+    }
+
+    synchronized Change popUndo() {
+        return undo.poll();
+    }
+
+    synchronized Change popRedo() {
+        return redo.poll();
+    }
+
+    synchronized void pushUndo(Change change) {
+        undo.push(change);
+    }
+
+    synchronized void pushRedo(Change change) {
+        redo.push(change);
+    }
+
+    synchronized int undoSize() {
+        return undo.size();
+    }
+
+    synchronized int redoSize() {
+        return redo.size();
+    }
+
+    /**
+     * 丢弃涉及这些任务的撤销和重做记录，其他记录保留
+     */
+    synchronized void forget(Set<String> ids) {
+        undo.removeIf(change -> change.involves(ids));
+        redo.removeIf(change -> change.involves(ids));
+    }
+
+    synchronized void clear() {
+        undo.clear();
+        redo.clear();
+    }
+}
@@ -0,0 +1,96 @@
+package service;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * TaskIdIndex类 - 按任务ID排序的索引，支持O(log n)的前缀查找
+ * 基于跳表实现，读操作不需要加锁
+ */
+class TaskIdIndex {
+    private static final int MAX_CANDIDATES = 5;  // 前缀不唯一时最多列出的候选数
+
+    private final NavigableMap<String, Task> byId = new ConcurrentSkipListMap<>();
+
+    void add(Task task) {
+        byId.put(task.getId(), task);
+    }
+
+    void remove(Task task) {
+        byId.remove(task.getId());
+    }
+
+    /**
+     * 任务是否仍在索引中（用于检测并发删除）
+     */
+    boolean contains(Task task) {
+        return byId.get(task.getId()) == task;
+    }
+
+    /**
+     * 是否有该ID的任务（精确匹配）
+     */
+    boolean containsId(String id) {
+        return byId.containsKey(id);
+    }
+
+    /**
+     * 按完整ID查找，没有时返回null
+     */
+    Task get(String id) {
+        return byId.get(id);
+    }
+
+    void clear() {
+        byId.clear();
+    }
+
+    /**
+     * 从prefix开始按顺序排列的ID（只读视图），以prefix开头的ID在最前面且连续
+     */
+    NavigableSet<String> idsFrom(String prefix) {
+        return byId.tailMap(prefix, true).navigableKeySet();
+    }
+
+    /**
+     * 根据ID前缀查找唯一的任务，完整ID优先（导入的ID可能是其他ID的前缀，如 id-1 和 id-10）
+     * 前缀匹配到多个任务时抛出 AmbiguousTaskIdException，而不是随便取第一个
+     */
+    Optional<Task> resolve(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // 有序表中以prefix开头的键是连续的一段，只需看前两个
+        Map.Entry<String, Task> first = byId.ceilingEntry(prefix);
+        if (first == null || !first.getKey().startsWith(prefix)) {
+            return Optional.empty();
+        }
+        if (first.getKey().equals(prefix)) {
+            return Optional.of(first.getValue());
+        }
+        Map.Entry<String, Task> second = byId.higherEntry(first.getKey());
+        if (second != null && second.getKey().startsWith(prefix)) {
+            throw new AmbiguousTaskIdException(prefix, candidates(prefix));
+        }
+        return Optional.of(first.getValue());
+    }
+
+    private List<String> candidates(String prefix) {
+        List<String> ids = new ArrayList<>();
+        for (String id : byId.tailMap(prefix, true).keySet()) {
+            if (!id.startsWith(prefix) || ids.size() == MAX_CANDIDATES) {
+                break;
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,190 @@
+package service;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * TaskList类 - 按添加顺序保存所有任务
+ *
+ * 和位图索引一样每个任务占一个只追加的槽位，删除只清空槽位，空槽超过一半时压缩到新数组。
+ * 增删都是均摊O(1)，不复制整个数组。
+ * 写操作在 TodoService 的结构锁内调用；读操作不加锁，只读一次volatile的数组和槽位数：
+ * 遍历开始后新增的任务不会出现，遍历期间删除的任务可能被跳过
+ */
+class TaskList implements Iterable<Task> {
+    private static final int MIN_COMPACT_SLOTS = 1024;
+
+    /**
+     * 读操作看到的数组和已发布的槽位数，追加时只换这个小对象，不复制数组
+     */
+    private static final class Slots {
+        final Task[] tasks;
+        final int count;
+
+        Slots(Task[] tasks, int count) {
+            this.tasks = tasks;
+            this.count = count;
+        }
+    }
+
+    private volatile Slots slots = new Slots(new Task[64], 0);
+    private volatile int size;
+    private final Map<String, Integer> slotById = new HashMap<>();  // 只在结构锁内访问
+
+    TaskList(Collection<Task> initial) {
+        addAll(initial);
+    }
+
+    void add(Task task) {
+        Slots current = slots;
+        Task[] array = current.tasks;
+        int slot = current.count;
+        if (slot == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[slot] = task;  // 在发布新的槽位数之前写入，读操作读到槽位数就能看到任务
+        slotById.put(task.getId(), slot);
+        slots = new Slots(array, slot + 1);
+        size++;
+    }
+
+    void addAll(Collection<Task> added) {
+        for (Task task : added) {
+            add(task);
+        }
+    }
+
+    /**
+     * @return 任务是否在列表中
+     */
+    boolean remove(Task task) {
+        Integer slot = slotById.remove(task.getId());
+        if (slot == null) {
+            return false;
+        }
+        Slots current = slots;
+        current.tasks[slot] = null;
+        size--;
+        if (current.count >= MIN_COMPACT_SLOTS && size < current.count / 2) {
+            compact(current);
+        }
+        return true;
+    }
+
+    void removeAll(Collection<Task> removed) {
+        for (Task task : removed) {
+            remove(task);
+        }
+    }
+
+    void clear() {
+        slotById.clear();
+        slots = new Slots(new Task[64], 0);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 复制到新列表
+     */
+    List<Task> toList() {
+        List<Task> list = new ArrayList<>(size);
+        for (Task task : this) {
+            list.add(task);
+        }
+        return list;
+    }
+
+    /**
+     * 跳过前offset个任务，最多取limit个
+     */
+    List<Task> page(long offset, int limit) {
+        List<Task> page = new ArrayList<>(Math.min(limit, Math.max(size, 0)));
+        long skip = offset;
+        for (Task task : this) {
+            if (skip > 0) {
+                skip--;
+            } else if (page.size() < limit) {
+                page.add(task);
+            } else {
+                break;
+            }
+        }
+        return page;
+    }
+
+    Stream<Task> stream() {
+        return StreamSupport.stream(Spliterators.spliterator(iterator(), size,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        Slots current = slots;
+        return new Iterator<Task>() {
+            private int index;
+            private Task next = advance();
+
+            private Task advance() {
+                while (index < current.count) {
+                    Task task = current.tasks[index++];
+                    if (task != null) {
+                        return task;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Task next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Task task = next;
+                next = advance();
+                return task;
+            }
+        };
+    }
+
+    /**
+     * 去掉空槽位复制到新数组，顺序不变；正在遍历旧数组的读操作不受影响
+     */
+    private void compact(Slots current) {
+        Task[] array = new Task[Math.max(64, Integer.highestOneBit(Math.max(size, 1)) * 2)];
+        int count = 0;
+        for (int i = 0; i < current.count; i++) {
+            Task task = current.tasks[i];
+            if (task != null) {
+                array[count] = task;
+                slotById.put(task.getId(), count);
+                count++;
+            }
+        }
+        slots = new Slots(array, count);
+    }
+}
@@ -0,0 +1,161 @@
+package service;
+
+import model.TaskView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * TaskListSnapshot类 - 任务列表某一版本的不可变视图
+ *
+ * 任务按槽位存放在32叉的字典树里，修改时只复制从根到该槽位路径上的几个节点，
+ * 其余节点在新旧版本之间共享。所以取快照不需要拷贝，持有快照期间其他线程照常修改。
+ * 已删除任务的槽位为空，遍历时跳过
+ */
+public final class TaskListSnapshot implements Iterable<TaskView> {
+    static final int BITS = 5;
+    static final int WIDTH = 1 << BITS;
+    static final int MASK = WIDTH - 1;
+
+    final Object[] root;
+    final int shift;      // 根节点所在层的位移，叶子层为0
+    final int slotCount;  // 已使用的槽位数（含已删除的空槽位）
+    private final int size;
+    private final long version;
+
+    TaskListSnapshot(Object[] root, int shift, int slotCount, int size, long version) {
+        this.root = root;
+        this.shift = shift;
+        this.slotCount = slotCount;
+        this.size = size;
+        this.version = version;
+    }
+
+    /**
+     * 版本号，每次修改加一
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 任务数
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 按任务列表顺序遍历；懒加载任务的详情在遍历到时读取
+     */
+    @Override
+    public Iterator<TaskView> iterator() {
+        Iterator<Object> entries = entries();
+        return new Iterator<TaskView>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public TaskView next() {
+                return LazyTaskView.resolve(entries.next());
+            }
+        };
+    }
+
+    /**
+     * 按顺序遍历槽位项（TaskView 或 LazyTaskView），不读取详情
+     */
+    Iterator<Object> entries() {
+        return new Iterator<Object>() {
+            private Object[] leaf;
+            private int index;
+            private Object next = advance();
+
+            private Object advance() {
+                while (index < slotCount) {
+                    if ((index & MASK) == 0 || leaf == null) {
+                        leaf = leafFor(index);
+                    }
+                    Object entry = leaf[index & MASK];
+                    index++;
+                    if (entry != null) {
+                        return entry;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Object next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Object entry = next;
+                next = advance();
+                return entry;
+            }
+        };
+    }
+
+    private Object[] leafFor(int index) {
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    public Stream<TaskView> stream() {
+        return StreamSupport.stream(Spliterators.spliterator(iterator(), size,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * 复制为不可修改的列表
+     */
+    public List<TaskView> toList() {
+        List<TaskView> list = new ArrayList<>(size);
+        for (TaskView view : this) {
+            list.add(view);
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * 分页读取，pageIndex从0开始
+     */
+    public List<TaskView> page(int pageIndex, int pageSize) {
+        List<TaskView> page = new ArrayList<>(pageSize);
+        long skip = (long) pageIndex * pageSize;
+        Iterator<Object> entries = entries();  // 跳过的任务不读取详情
+        while (entries.hasNext()) {
+            Object entry = entries.next();
+            if (skip > 0) {
+                skip--;
+            } else if (page.size() < pageSize) {
+                page.add(LazyTaskView.resolve(entry));
+            } else {
+                break;
+            }
+        }
+        return Collections.unmodifiableList(page);
+    }
+}
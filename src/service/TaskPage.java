@@ -0,0 +1,66 @@
+package service;
+
+import model.Task;
+
+import java.util.List;
+
+/**
+ * TaskPage类 - 分页查询的一页结果
+ */
+public class TaskPage {
+    private final List<Task> tasks;
+    private final int pageIndex;
+    private final int pageSize;
+    private final int totalCount;
+
+    public TaskPage(List<Task> tasks, int pageIndex, int pageSize, int totalCount) {
+        this.tasks = tasks;
+        this.pageIndex = pageIndex;
+        this.pageSize = pageSize;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * 本页的任务
+     */
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * 页码，从0开始
+     */
+    public int getPageIndex() {
+        return pageIndex;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * 符合条件的任务总数
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public int getTotalPages() {
+        return totalCount == 0 ? 1 : (int) (((long) totalCount + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * 本页第一个任务在全部结果中的序号，从0开始
+     */
+    public long getOffset() {
+        return (long) pageIndex * pageSize;
+    }
+
+    public boolean hasNext() {
+        return pageIndex + 1 < getTotalPages();
+    }
+
+    public boolean hasPrevious() {
+        return pageIndex > 0;
+    }
+}
@@ -0,0 +1,120 @@
+package service;
+
+import metrics.TodoMetrics.Operation;
+import model.Recurrence;
+import model.Task;
+
+import java.time.LocalDateTime;
+
+/**
+ * TaskPatch类 - 对一个任务的多项修改，由 TodoService.patchTask 一次应用
+ *
+ * 只修改设置过的字段，整个修改只写一次存储、记一条撤销记录、发布一个变更事件。例如：
+ *   new TaskPatch().title("新标题").priority(Task.Priority.HIGH).dueDate(null)
+ * 各字段的值应在创建修改时就检查好，应用时不会部分失败
+ */
+public class TaskPatch {
+    private String title;
+    private String description;
+    private Boolean completed;
+    private Task.Priority priority;
+    private LocalDateTime dueDate;
+    private boolean dueDateSet;
+    private Recurrence recurrence;
+    private boolean recurrenceSet;
+
+    /**
+     * 新标题，为空时不修改
+     */
+    public TaskPatch title(String title) {
+        this.title = title;
+        return this;
+    }
+
+    public TaskPatch description(String description) {
+        this.description = description;
+        return this;
+    }
+
+    public TaskPatch completed(boolean completed) {
+        this.completed = completed;
+        return this;
+    }
+
+    public TaskPatch priority(Task.Priority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * @param dueDate null表示清除截止时间
+     */
+    public TaskPatch dueDate(LocalDateTime dueDate) {
+        this.dueDate = dueDate;
+        this.dueDateSet = true;
+        return this;
+    }
+
+    /**
+     * @param recurrence null表示不再重复
+     */
+    public TaskPatch recurrence(Recurrence recurrence) {
+        this.recurrence = recurrence;
+        this.recurrenceSet = true;
+        return this;
+    }
+
+    /**
+     * 是否没有要修改的字段
+     */
+    public boolean isEmpty() {
+        return !changesText() && completed == null && priority == null && !dueDateSet && !recurrenceSet;
+    }
+
+    boolean changesText() {
+        return (title != null && !title.isEmpty()) || description != null;
+    }
+
+    boolean setsRecurrence() {
+        return recurrence != null;
+    }
+
+    /**
+     * 只改了一类字段时按该类统计，否则算作一般修改
+     */
+    Operation operation() {
+        if (changesText()) {
+            return Operation.UPDATE;
+        }
+        int kinds = (completed != null ? 1 : 0) + (priority != null ? 1 : 0) + (dueDateSet ? 1 : 0) + (recurrenceSet ? 1 : 0);
+        if (kinds != 1) {
+            return Operation.UPDATE;
+        }
+        if (completed != null) {
+            return Operation.COMPLETE;
+        }
+        if (priority != null) {
+            return Operation.SET_PRIORITY;
+        }
+        return dueDateSet ? Operation.SET_DUE_DATE : Operation.SET_RECURRENCE;
+    }
+
+    /**
+     * 截止时间先于重复规则写入，同时设置时以给出的截止时间作为第一次
+     */
+    void applyTo(Task task) {
+        TodoService.updateChange(title, description).accept(task);
+        if (completed != null) {
+            task.setCompleted(completed);
+        }
+        if (priority != null) {
+            task.setPriority(priority);
+        }
+        if (dueDateSet) {
+            task.setDueDate(dueDate);
+        }
+        if (recurrenceSet) {
+            TodoService.recurrenceChange(recurrence).accept(task);
+        }
+    }
+}
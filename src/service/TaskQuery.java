@@ -0,0 +1,126 @@
+package service;
+
+import model.Task;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * TaskQuery类 - 描述一次任务查询：筛选条件、多级排序和数量上限
+ *
+ * 例如最紧急的20个任务：
+ *   TaskQuery.where(TaskFilter.incomplete())
+ *           .orderBy(SortKey.PRIORITY, true)
+ *           .thenBy(SortKey.DUE_DATE, false)
+ *           .thenBy(SortKey.CREATED_AT, false)
+ *           .limit(20)
+ */
+public class TaskQuery {
+    /**
+     * 可排序的字段，没有值（例如没有截止时间）的任务总是排在最后
+     */
+    public enum SortKey {
+        PRIORITY("优先级", Task::getPriority),
+        DUE_DATE("截止时间", Task::getDueDate),
+        CREATED_AT("创建时间", Task::getCreatedAt),
+        TITLE("标题", Task::getTitle);
+
+        private final String displayName;
+        private final Function<Task, ? extends Comparable<?>> field;
+
+        SortKey(String displayName, Function<Task, ? extends Comparable<?>> field) {
+            this.displayName = displayName;
+            this.field = field;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Comparator<Task> comparator(boolean descending) {
+            Comparator<Comparable> natural = Comparator.naturalOrder();
+            Comparator<Comparable> order = descending ? natural.reversed() : natural;
+            return Comparator.comparing(task -> (Comparable) field.apply(task), Comparator.nullsLast(order));
+        }
+    }
+
+    private final TaskFilter filter;
+    private Comparator<Task> order;
+    private int limit;  // 0 表示不限
+    private boolean parallel;
+
+    private TaskQuery(TaskFilter filter) {
+        this.filter = filter;
+    }
+
+    public static TaskQuery where(TaskFilter filter) {
+        return new TaskQuery(filter);
+    }
+
+    public static TaskQuery all() {
+        return new TaskQuery(TaskFilter.all());
+    }
+
+    /**
+     * 最紧急的limit个未完成任务：优先级从高到低，再按截止时间、创建时间从早到晚
+     */
+    public static TaskQuery mostUrgent(int limit) {
+        return where(TaskFilter.incomplete())
+                .orderBy(SortKey.PRIORITY, true)
+                .thenBy(SortKey.DUE_DATE, false)
+                .thenBy(SortKey.CREATED_AT, false)
+                .limit(limit);
+    }
+
+    /**
+     * 主排序字段
+     */
+    public TaskQuery orderBy(SortKey key, boolean descending) {
+        this.order = key.comparator(descending);
+        return this;
+    }
+
+    /**
+     * 次级排序字段，前面的字段相同时才比较
+     */
+    public TaskQuery thenBy(SortKey key, boolean descending) {
+        this.order = order == null ? key.comparator(descending) : order.thenComparing(key.comparator(descending));
+        return this;
+    }
+
+    /**
+     * 最多返回limit个任务，0 表示不限
+     */
+    public TaskQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit不能为负数: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * 不限数量的大查询是否用并行流排序
+     */
+    public TaskQuery parallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    TaskFilter getFilter() {
+        return filter;
+    }
+
+    Comparator<Task> getOrder() {
+        return order;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    boolean isParallel() {
+        return parallel;
+    }
+}
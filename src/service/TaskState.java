@@ -0,0 +1,31 @@
+package service;
+
+import model.Recurrence;
+import model.Task;
+
+import java.time.LocalDateTime;
+
+/**
+ * TaskState类 - 修改前任务中被索引字段的取值，用于增量更新统计和索引
+ */
+class TaskState {
+    final boolean completed;
+    final LocalDateTime completedAt;
+    final Task.Priority priority;
+    final LocalDateTime dueDate;
+    final Recurrence recurrence;
+
+    private TaskState(boolean completed, LocalDateTime completedAt, Task.Priority priority, LocalDateTime dueDate,
+                      Recurrence recurrence) {
+        this.completed = completed;
+        this.completedAt = completedAt;
+        this.priority = priority;
+        this.dueDate = dueDate;
+        this.recurrence = recurrence;
+    }
+
+    static TaskState of(Task task) {
+        return new TaskState(task.isCompleted(), task.getCompletedAt(), task.getPriority(), task.getDueDate(),
+                task.getRecurrence());
+    }
+}
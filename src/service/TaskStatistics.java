@@ -0,0 +1,61 @@
+package service;
+
+import model.Task;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * TaskStatistics类 - 随每次修改增量维护的计数器，查询统计时不再遍历任务列表
+ */
+class TaskStatistics {
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicIntegerArray byPriority = new AtomicIntegerArray(Task.Priority.values().length);
+
+    void onAdded(Task task) {
+        total.incrementAndGet();
+        if (task.isCompleted()) {
+            completed.incrementAndGet();
+        }
+        byPriority.incrementAndGet(task.getPriority().ordinal());
+    }
+
+    void onRemoved(TaskState state) {
+        total.decrementAndGet();
+        if (state.completed) {
+            completed.decrementAndGet();
+        }
+        byPriority.decrementAndGet(state.priority.ordinal());
+    }
+
+    void onChanged(Task task, TaskState before) {
+        if (before.completed != task.isCompleted()) {
+            completed.addAndGet(task.isCompleted() ? 1 : -1);
+        }
+        if (before.priority != task.getPriority()) {
+            byPriority.decrementAndGet(before.priority.ordinal());
+            byPriority.incrementAndGet(task.getPriority().ordinal());
+        }
+    }
+
+    void clear() {
+        total.set(0);
+        completed.set(0);
+        for (int i = 0; i < byPriority.length(); i++) {
+            byPriority.set(i, 0);
+        }
+    }
+
+    int getTotal() {
+        return total.get();
+    }
+
+    int getCompleted() {
+        return completed.get();
+    }
+
+    int getByPriority(Task.Priority priority) {
+        return byPriority.get(priority.ordinal());
+    }
+}
@@ -0,0 +1,1514 @@
+package service;
+
+import dao.TaskDao;
+import dao.TaskRecordFormat;
+import dao.TaskRecordReader;
+import dao.TaskRecordWriter;
+import dao.WriteBehindSaver;
+import metrics.TodoMetrics;
+import metrics.TodoMetrics.Operation;
+import model.Recurrence;
+import model.Task;
+import model.TaskView;
+import service.TaskHistory.Change;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * TodoService类 - 处理待办事项的业务逻辑
+ *
+ * 线程安全：读操作不加锁（只追加槽位的任务列表 + 跳表ID索引）；
+ * 增删任务持有结构锁，修改单个任务只持有该任务所在的分段锁，不同任务可以并行修改
+ */
+public class TodoService {
+    private static final int LOCK_STRIPES = 64;
+    private static final int IMPORT_BATCH_SIZE = 10_000;
+    private static final int PROGRESS_INTERVAL = 100_000;
+    private static final int MAX_REPORTED_ERRORS = 10;  // 导入时最多逐条报告的无效记录数
+    private static final long DEFAULT_RECURRENCE_CHECK_SECONDS = 60;
+
+    private final TaskList tasks;
+    private TaskDao taskDao;
+    private final TaskIdIndex idIndex = new TaskIdIndex();
+    private final TaskStatistics statistics = new TaskStatistics();
+    private final DueDateIndex dueIndex = new DueDateIndex();
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final BitmapIndex bitmapIndex = new BitmapIndex();
+    private final RecurrenceIndex recurrenceIndex = new RecurrenceIndex();
+    // 从节点关闭（todo.recurrence.generate=false），由主节点生成后复制过来
+    private final boolean generateRecurring = Boolean.parseBoolean(System.getProperty("todo.recurrence.generate", "true"));
+    private final WriteBehindSaver saver;
+    private final ReentrantLock structureLock = new ReentrantLock();
+    private final StripedLock taskLocks = new StripedLock(LOCK_STRIPES);
+    private final TodoMetrics metrics = TodoMetrics.getInstance();
+    private final Thread shutdownHook;
+    private final ScheduledExecutorService recurrenceTicker;  // 定时为到期的重复任务生成下一次，不生成时为null
+    private volatile VersionedTaskList versions;  // 第一次取快照时才建立
+    private final TaskHistory history = new TaskHistory(Integer.getInteger("todo.undo.limit", 100));
+    private final ReentrantLock undoLock = new ReentrantLock();
+    private final ChangeFeed changeFeed = new ChangeFeed(Integer.getInteger("todo.feed.capacity", 4096));
+
+    public TodoService() {
+        this(new TaskDao());
+    }
+
+    /**
+     * 使用指定的数据访问对象（例如指向其他数据目录的TaskDao）
+     * 构造时只加载数据，创建后调用 start() 启动后台保存和定时任务
+     */
+    public TodoService(TaskDao taskDao) {
+        this.taskDao = taskDao;
+        this.tasks = new TaskList(taskDao.loadTasks());  // 启动时加载数据
+        for (Task task : tasks) {
+            onTaskAdded(task);
+        }
+        TaskList taskList = tasks;
+        this.saver = new WriteBehindSaver(taskDao, taskList::toList);  // 拷贝不需要加锁
+        // 非正常退出（如Ctrl+C）时也把未保存的修改写入文件
+        this.shutdownHook = new Thread(saver::close, "task-save-on-exit");
+        this.recurrenceTicker = generateRecurring ? Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "task-recurrence");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * 启动后台保存线程、注册退出时保存，并进行启动时的归档和重复任务生成，之后定时生成到期的重复任务
+     */
+    public void start() {
+        saver.start();
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        // 设置了系统属性 todo.archive.afterDays 时，启动时把完成超过该天数的任务移入归档；默认不自动归档
+        int archiveDays = Integer.getInteger("todo.archive.afterDays", -1);
+        if (archiveDays >= 0) {
+            int archived = archiveCompleted(Duration.ofDays(archiveDays));
+            if (archived > 0) {
+                System.out.println("[系统] 已归档 " + archived + " 个完成超过 " + archiveDays + " 天的任务");
+            }
+        }
+        int generated = generateDueOccurrences();
+        if (generated > 0) {
+            System.out.println("[系统] 已为 " + generated + " 个重复任务生成下一次任务");
+        }
+        if (recurrenceTicker != null) {
+            long period = Long.getLong("todo.recurrence.checkSeconds", DEFAULT_RECURRENCE_CHECK_SECONDS);
+            recurrenceTicker.scheduleWithFixedDelay(this::generateOnTick, period, period, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 定时检查，出错时只报告，不中断之后的检查
+     */
+    private void generateOnTick() {
+        try {
+            generateDueOccurrences();
+        } catch (RuntimeException e) {
+            System.err.println("[错误] 生成重复任务失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 添加新任务
+     */
+    public Task addTask(String title, String description) {
+        long start = System.nanoTime();
+        Task task = new Task(title, description);
+        ReentrantLock taskLock = taskLocks.forId(task.getId());
+        structureLock.lock();
+        taskLock.lock();  // 保证新增记录先于对该任务的其他修改写入
+        try {
+            tasks.add(task);
+            onTaskAdded(task);
+            persistChange(task);  // 自动保存
+            TaskView view = TaskView.of(task);
+            history.record(Change.added(view));
+            changeFeed.publish(TaskEvent.Type.ADDED, view);
+        } finally {
+            taskLock.unlock();
+            structureLock.unlock();
+            metrics.record(Operation.ADD, start);
+        }
+        return task;
+    }
+
+    /**
+     * 根据ID删除任务
+     * @throws AmbiguousTaskIdException ID前缀匹配到多个任务时
+     */
+    public boolean deleteTask(String id) {
+        long start = System.nanoTime();
+        structureLock.lock();
+        try {
+            Optional<Task> task = idIndex.resolve(id);
+            if (!task.isPresent()) {
+                return false;
+            }
+            ReentrantLock taskLock = taskLocks.forId(task.get().getId());
+            taskLock.lock();  // 等待该任务上进行中的修改完成
+            try {
+                TaskView view = TaskView.of(task.get());
+                tasks.remove(task.get());
+                onTaskRemoved(task.get());
+                persistRemoval(task.get());  // 自动保存
+                history.record(Change.removed(view));
+                changeFeed.publish(TaskEvent.Type.DELETED, view);
+            } finally {
+                taskLock.unlock();
+            }
+            return true;
+        } finally {
+            structureLock.unlock();
+            metrics.record(Operation.DELETE, start);
+        }
+    }
+
+    /**
+     * 根据ID（或ID前缀）查找任务
+     * @throws AmbiguousTaskIdException ID前缀匹配到多个任务时
+     */
+    public Optional<Task> findTaskById(String id) {
+        long start = System.nanoTime();
+        try {
+            return idIndex.resolve(id);
+        } finally {
+            metrics.record(Operation.FIND, start);
+        }
+    }
+
+    /**
+     * 获取所有任务（拷贝整个列表；只读且不需要拷贝时用 snapshot()）
+     */
+    public List<Task> getAllTasks() {
+        long start = System.nanoTime();
+        try {
+            return tasks.toList();
+        } finally {
+            metrics.record(Operation.LIST, start);
+        }
+    }
+
+    /**
+     * 获取任务列表当前版本的只读快照，O(1)，不拷贝任务列表
+     * 快照中的任务是只读副本，之后的修改不会影响已取得的快照
+     * 第一次调用时为所有任务建立副本，之后每次修改只复制少量节点。
+     * 懒加载任务的副本只带索引字段，详情在读到该任务时才读取，取快照本身不会加载全部详情
+     */
+    public TaskListSnapshot snapshot() {
+        long start = System.nanoTime();
+        try {
+            VersionedTaskList current = versions;
+            if (current == null) {
+                structureLock.lock();
+                taskLocks.lockAll();
+                try {
+                    if (versions == null) {
+                        List<Object> entries = new ArrayList<>(tasks.size());
+                        for (Task task : tasks) {
+                            entries.add(LazyTaskView.entryOf(task));
+                        }
+                        versions = new VersionedTaskList(entries);
+                    }
+                    current = versions;
+                } finally {
+                    taskLocks.unlockAll();
+                    structureLock.unlock();
+                }
+            }
+            return current.snapshot();
+        } finally {
+            metrics.record(Operation.LIST, start);
+        }
+    }
+
+    /**
+     * 任务变更流，用于增量刷新而不是反复读取全部任务
+     * 例如先 subscribe()，再取 snapshot() 作为初始数据，之后只应用订阅到的事件
+     */
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    /**
+     * 以流的方式遍历所有任务，不拷贝任务列表
+     * 遍历开始后新增的任务不在流中，遍历期间删除的任务可能被跳过；需要一致的快照时用 snapshot()
+     */
+    public Stream<Task> streamTasks() {
+        return tasks.stream();
+    }
+
+    /**
+     * 分页获取所有任务，pageIndex从0开始
+     */
+    public TaskPage getTaskPage(int pageIndex, int pageSize) {
+        long start = System.nanoTime();
+        try {
+            // 按顺序跳过前面的任务，不拷贝整个列表
+            List<Task> page = tasks.page((long) pageIndex * pageSize, pageSize);
+            return new TaskPage(page, pageIndex, pageSize, tasks.size());
+        } finally {
+            metrics.record(Operation.LIST, start);
+        }
+    }
+
+    /**
+     * 分页获取未完成的任务
+     */
+    public TaskPage getIncompleteTaskPage(int pageIndex, int pageSize) {
+        long start = System.nanoTime();
+        try {
+            return bitmapIndex.page(TaskFilter.incomplete(), pageIndex, pageSize);
+        } finally {
+            metrics.record(Operation.LIST, start);
+        }
+    }
+
+    /**
+     * 分页获取已完成的任务
+     */
+    public TaskPage getCompletedTaskPage(int pageIndex, int pageSize) {
+        long start = System.nanoTime();
+        try {
+            return bitmapIndex.page(TaskFilter.completed(), pageIndex, pageSize);
+        } finally {
+            metrics.record(Operation.LIST, start);
+        }
+    }
+
+    /**
+     * 获取未完成的任务
+     */
+    public List<Task> getIncompleteTasks() {
+        long start = System.nanoTime();
+        try {
+            return bitmapIndex.select(TaskFilter.incomplete());
+        } finally {
+            metrics.record(Operation.LIST, start);
+        }
+    }
+
+    /**
+     * 获取已完成的任务
+     */
+    public List<Task> getCompletedTasks() {
+        long start = System.nanoTime();
+        try {
+            return bitmapIndex.select(TaskFilter.completed());
+        } finally {
+            metrics.record(Operation.LIST, start);
+        }
+    }
+
+    /**
+     * 按条件查询任务，结果保持任务列表的顺序
+     * 例如 query(TaskFilter.priority(Task.Priority.HIGH).and(TaskFilter.incomplete()))
+     */
+    public List<Task> query(TaskFilter filter) {
+        long start = System.nanoTime();
+        try {
+            return bitmapIndex.select(filter);
+        } finally {
+            metrics.record(Operation.QUERY, start);
+        }
+    }
+
+    /**
+     * 按查询条件筛选、排序并截取任务
+     * 有数量上限时只维护大小为上限的堆，不对全部结果排序
+     */
+    public List<Task> query(TaskQuery query) {
+        long start = System.nanoTime();
+        try {
+            TaskFilter filter = query.getFilter();
+            if (query.getOrder() == null && query.getLimit() > 0) {
+                return bitmapIndex.page(filter, 0, query.getLimit()).getTasks();
+            }
+            return QueryEngine.sortAndLimit(bitmapIndex.select(filter), query);
+        } finally {
+            metrics.record(Operation.QUERY, start);
+        }
+    }
+
+    /**
+     * 按条件分页查询任务
+     */
+    public TaskPage queryPage(TaskFilter filter, int pageIndex, int pageSize) {
+        long start = System.nanoTime();
+        try {
+            return bitmapIndex.page(filter, pageIndex, pageSize);
+        } finally {
+            metrics.record(Operation.QUERY, start);
+        }
+    }
+
+    /**
+     * 满足条件的任务数
+     */
+    public int count(TaskFilter filter) {
+        return bitmapIndex.count(filter);
+    }
+
+    /**
+     * 标记任务为完成
+     */
+    public boolean completeTask(String id) {
+        return modifyTask(id, Operation.COMPLETE, task -> task.setCompleted(true));
+    }
+
+    /**
+     * 切换任务完成状态
+     */
+    public boolean toggleTaskStatus(String id) {
+        return modifyTask(id, Operation.TOGGLE, Task::toggleCompleted);
+    }
+
+    /**
+     * 设置任务完成状态
+     */
+    public boolean setCompleted(String id, boolean completed) {
+        return modifyTask(id, Operation.COMPLETE, task -> task.setCompleted(completed));
+    }
+
+    /**
+     * 更新任务信息
+     */
+    public boolean updateTask(String id, String newTitle, String newDescription) {
+        // 只有这里会改标题和描述
+        return modifyTask(id, Operation.UPDATE, updateChange(newTitle, newDescription).andThen(searchIndex::update));
+    }
+
+    /**
+     * 一次修改任务的多个字段，只写一次存储、记一条撤销记录、发布一个变更事件
+     */
+    public boolean patchTask(String id, TaskPatch patch) {
+        Consumer<Task> change = patch::applyTo;
+        if (patch.changesText()) {
+            change = change.andThen(searchIndex::update);
+        }
+        return modifyTask(id, patch.operation(), change, patch.setsRecurrence());
+    }
+
+    /**
+     * 更新标题和描述的修改，标题为空或null时不改，描述为null时不改
+     */
+    static Consumer<Task> updateChange(String newTitle, String newDescription) {
+        return task -> {
+            if (newTitle != null && !newTitle.isEmpty()) {
+                task.setTitle(newTitle);
+            }
+            if (newDescription != null) {
+                task.setDescription(newDescription);
+            }
+        };
+    }
+
+    /**
+     * 设置任务优先级
+     */
+    public boolean setPriority(String id, Task.Priority priority) {
+        return modifyTask(id, Operation.SET_PRIORITY, task -> task.setPriority(priority));
+    }
+
+    /**
+     * 在标题和描述中搜索任务，按相关度排序，最多返回limit个结果
+     */
+    public List<Task> searchTasks(String query, int limit) {
+        long start = System.nanoTime();
+        try {
+            searchIndex.ensureBuilt(tasks);
+            return searchIndex.search(query, limit);
+        } finally {
+            metrics.record(Operation.SEARCH, start);
+        }
+    }
+
+    /**
+     * 设置任务截止时间，dueDate为null表示清除截止时间
+     */
+    public boolean setDueDate(String id, LocalDateTime dueDate) {
+        return modifyTask(id, Operation.SET_DUE_DATE, task -> task.setDueDate(dueDate));
+    }
+
+    /**
+     * 设置任务的重复规则，rule为null表示不再重复
+     * 没有截止时间的任务以从现在起的下一个周期作为第一次的截止时间；已完成的任务会立即生成下一次
+     */
+    public boolean setRecurrence(String id, Recurrence rule) {
+        return modifyTask(id, Operation.SET_RECURRENCE, recurrenceChange(rule));
+    }
+
+    static Consumer<Task> recurrenceChange(Recurrence rule) {
+        return task -> {
+            task.setRecurrence(rule);
+            if (rule != null && task.getDueDate() == null) {
+                task.setDueDate(rule.next(LocalDateTime.now()));
+            }
+        };
+    }
+
+    /**
+     * 为已完成或已到截止时间的重复任务生成下一次任务，返回生成的任务数
+     * 由定时检查（todo.recurrence.checkSeconds，默认60秒）和启动时调用；完成重复任务等修改会在同一次写入中直接生成。
+     * 整次生成只写一次存储，记为一条撤销记录，撤销时删除生成的任务、把规则还给原任务
+     */
+    public int generateDueOccurrences() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!generateRecurring || !recurrenceIndex.hasDue(now)) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        structureLock.lock();
+        taskLocks.lockAll();
+        try {
+            List<Task> due = recurrenceIndex.due(now);
+            if (due.isEmpty()) {
+                return 0;
+            }
+            List<TaskView> before = new ArrayList<>();
+            if (history.isEnabled()) {
+                for (Task task : due) {
+                    before.add(TaskView.of(task));
+                }
+            }
+            List<Task> changed = new ArrayList<>(due);
+            List<Task> generated = generateOccurrences(due, now);
+            changed.addAll(generated);
+            persistBulk(changed, new ArrayList<>());
+            if (history.isEnabled()) {
+                history.record(new Change("生成 " + generated.size() + " 个重复任务", before, views(changed)));
+            }
+            return generated.size();
+        } finally {
+            taskLocks.unlockAll();
+            structureLock.unlock();
+            metrics.record(Operation.BULK, start);
+        }
+    }
+
+    /**
+     * 在结构锁和全部分段锁内为到期的任务生成下一次任务，返回加入任务列表的新任务
+     * 规则从原任务移到新任务上，原任务保留为普通任务；错过的各次直接跳过，只生成下一次尚未到期的。
+     * 不持久化、不记录撤销，由调用方和触发生成的修改一起处理
+     */
+    private List<Task> generateOccurrences(List<Task> due, LocalDateTime now) {
+        List<Task> generated = new ArrayList<>(due.size());
+        for (Task task : due) {
+            Recurrence rule = task.getRecurrence();
+            Task next = new Task(task.getTitle(), task.getDescription());
+            next.setPriority(task.getPriority());
+            next.setDueDate(rule.nextAfter(task.getDueDate() != null ? task.getDueDate() : now, now));
+            next.setRecurrence(rule);
+
+            TaskState state = TaskState.of(task);
+            task.setRecurrence(null);
+            onTaskChanged(task, state);
+            changeFeed.publish(TaskEvent.Type.UPDATED, TaskView.of(task));
+            generated.add(next);
+        }
+        insertTasks(generated);
+        return generated;
+    }
+
+    /**
+     * 修改后需要生成下一次的任务（写操作在同一次写入中生成）
+     */
+    private List<Task> dueForGeneration(Collection<Task> changed, LocalDateTime now) {
+        List<Task> due = new ArrayList<>();
+        if (generateRecurring) {
+            for (Task task : changed) {
+                if (idIndex.contains(task) && RecurrenceIndex.isDue(task, now)) {
+                    due.add(task);
+                }
+            }
+        }
+        return due;
+    }
+
+    private static List<TaskView> views(List<Task> tasks) {
+        List<TaskView> views = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            views.add(TaskView.of(task));
+        }
+        return views;
+    }
+
+    /**
+     * 获取已过期的未完成任务，按截止时间排序
+     */
+    public List<Task> getOverdueTasks() {
+        long start = System.nanoTime();
+        try {
+            return dueIndex.overdue(LocalDateTime.now());
+        } finally {
+            metrics.record(Operation.DUE_QUERY, start);
+        }
+    }
+
+    /**
+     * 获取截止时间在 [from, to] 之间的未完成任务，按截止时间排序
+     */
+    public List<Task> getTasksDueBetween(LocalDateTime from, LocalDateTime to) {
+        long start = System.nanoTime();
+        try {
+            return dueIndex.dueBetween(from, to);
+        } finally {
+            metrics.record(Operation.DUE_QUERY, start);
+        }
+    }
+
+    /**
+     * 获取接下来最先到期的limit个未完成任务
+     */
+    public List<Task> getNextDueTasks(int limit) {
+        long start = System.nanoTime();
+        try {
+            return dueIndex.nextDue(LocalDateTime.now(), limit);
+        } finally {
+            metrics.record(Operation.DUE_QUERY, start);
+        }
+    }
+
+    /**
+     * 获取任务统计信息
+     */
+    public String getStatistics() {
+        long start = System.nanoTime();
+        try {
+            int total = statistics.getTotal();
+            int completed = statistics.getCompleted();
+            int incomplete = total - completed;
+            int overdue = dueIndex.countOverdue(LocalDateTime.now());
+
+            return String.format("总任务: %d | 已完成: %d | 未完成: %d | 已过期: %d | 优先级 高: %d 中: %d 低: %d | 重复规则: %d",
+                    total, completed, incomplete, overdue,
+                    statistics.getByPriority(Task.Priority.HIGH),
+                    statistics.getByPriority(Task.Priority.MEDIUM),
+                    statistics.getByPriority(Task.Priority.LOW),
+                    recurrenceIndex.size());
+        } finally {
+            metrics.record(Operation.STATISTICS, start);
+        }
+    }
+
+    /**
+     * 清空所有任务
+     */
+    public void clearAllTasks() {
+        long start = System.nanoTime();
+        structureLock.lock();
+        taskLocks.lockAll();
+        try {
+            if (history.isEnabled() && !tasks.isEmpty()) {
+                List<TaskView> cleared = new ArrayList<>(tasks.size());
+                for (Task task : tasks) {
+                    cleared.add(TaskView.of(task));
+                }
+                history.record(new Change("清空所有任务", cleared, new ArrayList<>()));
+            }
+            tasks.clear();
+            onTasksCleared();
+            persistClear();  // 自动保存
+            changeFeed.publish(TaskEvent.Type.CLEARED, null);
+        } finally {
+            taskLocks.unlockAll();
+            structureLock.unlock();
+            metrics.record(Operation.CLEAR, start);
+        }
+    }
+
+    /**
+     * 手动保存数据（用于修改任务属性后）
+     */
+    public void save() {
+        saver.saveNow();
+    }
+
+    /**
+     * 开始批处理：之后通过返回的 TaskBatch 记录的修改在 commit() 时一次性应用并只写一次存储
+     * 提交前其他调用方看不到这些修改；不提交直接丢弃即为放弃
+     */
+    public TaskBatch beginBatch() {
+        return new TaskBatch(this, idIndex);
+    }
+
+    /**
+     * 在结构锁和全部分段锁内按顺序应用批处理记录的修改，整批只写一次存储、只记一条撤销记录
+     * 批处理开始后被其他调用方删除的任务，对它的修改跳过
+     */
+    void commitBatch(TaskBatch batch) {
+        long start = System.nanoTime();
+        structureLock.lock();
+        taskLocks.lockAll();
+        try {
+            Map<Task, TaskState> states = new LinkedHashMap<>();
+            Map<Task, TaskView> before = new LinkedHashMap<>();
+            Map<Task, TaskEvent.Type> modified = new LinkedHashMap<>();
+            List<Task> removed = new ArrayList<>();
+            for (TaskBatch.Step step : batch.getSteps()) {
+                Task task = idIndex.get(step.id);
+                if (task == null) {
+                    continue;
+                }
+                if (!states.containsKey(task)) {
+                    states.put(task, TaskState.of(task));
+                    if (history.isEnabled()) {
+                        before.put(task, TaskView.of(task));
+                    }
+                }
+                if (step.change == null) {
+                    removed.add(task);
+                } else {
+                    step.change.accept(task);
+                    modified.put(task, eventType(step.operation));
+                }
+            }
+
+            // 先按修改后的内容更新索引，删除时索引中才是任务当前的状态
+            for (Task task : modified.keySet()) {
+                onTaskChanged(task, states.get(task));
+                searchIndex.update(task);
+            }
+            List<Task> deleted = removeTasks(removed);
+            List<Task> changed = new ArrayList<>();
+            for (Map.Entry<Task, TaskEvent.Type> entry : modified.entrySet()) {
+                Task task = entry.getKey();
+                if (idIndex.contains(task)) {
+                    changeFeed.publish(entry.getValue(), TaskView.of(task));
+                    changed.add(task);
+                }
+            }
+            List<Task> added = batch.getAddedTasks();
+            insertTasks(added);
+            changed.addAll(added);
+            LocalDateTime now = LocalDateTime.now();
+            changed.addAll(generateOccurrences(dueForGeneration(changed, now), now));  // 和批处理一起写入、一起撤销
+            persistBulk(changed, deleted);
+
+            if (history.isEnabled() && !(before.isEmpty() && added.isEmpty())) {
+                history.record(new Change("批处理 " + batch.size() + " 条命令", new ArrayList<>(before.values()), views(changed)));
+            }
+        } finally {
+            taskLocks.unlockAll();
+            structureLock.unlock();
+            metrics.record(Operation.BULK, start);
+        }
+    }
+
+    /**
+     * 把完成时间早于age之前的任务移入压缩归档，返回归档的任务数
+     * 旧数据中没有完成时间的任务不知道完成了多久，只在age为0（归档全部已完成任务）时归档。
+     * 先写入归档并同步到磁盘，再从任务列表中删除；撤销记录中涉及这些任务的条目一并丢弃
+     */
+    public int archiveCompleted(Duration age) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(age);
+        structureLock.lock();
+        taskLocks.lockAll();
+        try {
+            List<Task> expired = new ArrayList<>();
+            for (Task task : bitmapIndex.select(TaskFilter.completed())) {
+                LocalDateTime completedAt = task.getCompletedAt();
+                if (completedAt == null ? age.isZero() : completedAt.isBefore(cutoff)) {
+                    expired.add(task);
+                }
+            }
+            if (expired.isEmpty()) {
+                return 0;
+            }
+            try {
+                taskDao.getArchive().append(expired);
+            } catch (IOException e) {
+                System.err.println("[错误] 归档失败: " + e.getMessage());
+                return 0;
+            }
+            List<Task> archived = removeTasks(expired);
+            persistBulk(new ArrayList<>(), archived);
+            // 撤销这些条目会把已归档的任务恢复到任务列表，下次归档时重复写入
+            Set<String> ids = new HashSet<>();
+            for (Task task : archived) {
+                ids.add(task.getId());
+            }
+            history.forget(ids);
+            return expired.size();
+        } finally {
+            taskLocks.unlockAll();
+            structureLock.unlock();
+        }
+    }
+
+    /**
+     * 按归档顺序流式读取归档的任务，用完后需要关闭流（try-with-resources）
+     * 归档时进程崩溃可能导致任务同时在归档和任务列表中，这里跳过仍在任务列表中的
+     */
+    public Stream<Task> streamArchive() {
+        return taskDao.getArchive().stream().filter(task -> !idIndex.containsId(task.getId()));
+    }
+
+    /**
+     * 分页浏览归档，每次从磁盘读取，不把归档载入内存
+     */
+    public TaskPage getArchivedTaskPage(int pageIndex, int pageSize) {
+        long start = System.nanoTime();
+        long offset = (long) pageIndex * pageSize;
+        List<Task> page = new ArrayList<>(pageSize);
+        int[] total = new int[1];
+        try (Stream<Task> archived = streamArchive()) {
+            archived.forEach(task -> {
+                if (total[0] >= offset && page.size() < pageSize) {
+                    page.add(task);
+                }
+                total[0]++;
+            });
+        } finally {
+            metrics.record(Operation.QUERY, start);
+        }
+        return new TaskPage(page, pageIndex, pageSize, total[0]);
+    }
+
+    /**
+     * 在归档任务的标题和描述中搜索关键词（不区分大小写），最多返回limit个
+     */
+    public List<Task> searchArchive(String keyword, int limit) {
+        long start = System.nanoTime();
+        String lower = keyword.toLowerCase();
+        try (Stream<Task> archived = streamArchive()) {
+            return archived.filter(task -> contains(task.getTitle(), lower) || contains(task.getDescription(), lower))
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        } finally {
+            metrics.record(Operation.SEARCH, start);
+        }
+    }
+
+    private static boolean contains(String text, String lowerKeyword) {
+        return text != null && text.toLowerCase().contains(lowerKeyword);
+    }
+
+    /**
+     * 归档统计信息
+     */
+    public String getArchiveStatistics() {
+        long start = System.nanoTime();
+        Map<Task.Priority, Integer> byPriority = new EnumMap<>(Task.Priority.class);
+        int total = 0;
+        try (Stream<Task> archived = streamArchive()) {
+            for (Task task : (Iterable<Task>) archived::iterator) {
+                byPriority.merge(task.getPriority(), 1, Integer::sum);
+                total++;
+            }
+        } finally {
+            metrics.record(Operation.STATISTICS, start);
+        }
+        return String.format("归档任务: %d | 优先级 高: %d 中: %d 低: %d | 归档文件: %.1f KB",
+                total,
+                byPriority.getOrDefault(Task.Priority.HIGH, 0),
+                byPriority.getOrDefault(Task.Priority.MEDIUM, 0),
+                byPriority.getOrDefault(Task.Priority.LOW, 0),
+                taskDao.getArchive().size() / 1024.0);
+    }
+
+    /**
+     * 撤销最近一次修改，返回被撤销修改的说明；没有可撤销的修改时返回空
+     * 被删除的任务恢复后排在列表末尾
+     */
+    public Optional<String> undo() {
+        undoLock.lock();
+        try {
+            Change change = history.popUndo();
+            if (change == null) {
+                return Optional.empty();
+            }
+            restore(change.after, change.before);
+            history.pushRedo(change);
+            return Optional.of(change.description);
+        } finally {
+            undoLock.unlock();
+        }
+    }
+
+    /**
+     * 重做最近一次撤销的修改
+     */
+    public Optional<String> redo() {
+        undoLock.lock();
+        try {
+            Change change = history.popRedo();
+            if (change == null) {
+                return Optional.empty();
+            }
+            restore(change.before, change.after);
+            history.pushUndo(change);
+            return Optional.of(change.description);
+        } finally {
+            undoLock.unlock();
+        }
+    }
+
+    public int getUndoCount() {
+        return history.undoSize();
+    }
+
+    public int getRedoCount() {
+        return history.redoSize();
+    }
+
+    /**
+     * 把from中的任务恢复成to中的样子：只在from中的删除，只在to中的重新添加，两边都有的改回to的内容
+     * 恢复过程本身不记入撤销记录；整个恢复只写一次存储
+     */
+    private void restore(List<TaskView> from, List<TaskView> to) {
+        structureLock.lock();
+        taskLocks.lockAll();
+        try {
+            Map<String, TaskView> target = new HashMap<>();
+            for (TaskView view : to) {
+                target.put(view.getId(), view);
+            }
+            List<Task> removed = new ArrayList<>();
+            for (TaskView view : from) {
+                if (!target.containsKey(view.getId())) {
+                    idIndex.resolve(view.getId()).ifPresent(removed::add);
+                }
+            }
+
+            List<Task> existing = new ArrayList<>();
+            List<Task> added = new ArrayList<>();
+            for (TaskView view : to) {
+                Optional<Task> task = idIndex.resolve(view.getId());
+                if (task.isPresent()) {
+                    existing.add(task.get());
+                } else {
+                    added.add(view.toTask());
+                }
+            }
+
+            List<Task> deleted = removeTasks(removed);
+            List<Task> changed = modifyTasks(existing, Operation.UPDATE, task -> true, task -> {
+                target.get(task.getId()).copyTo(task);
+                searchIndex.update(task);
+            }, null);
+            insertTasks(added);
+            changed.addAll(added);
+            persistBulk(changed, deleted);
+        } finally {
+            taskLocks.unlockAll();
+            structureLock.unlock();
+        }
+    }
+
+    /**
+     * 删除满足条件的所有任务，返回删除的任务数
+     * 一次遍历任务列表，只写一次存储，可以整体撤销
+     */
+    public int deleteWhere(TaskFilter filter) {
+        long start = System.nanoTime();
+        structureLock.lock();
+        taskLocks.lockAll();
+        try {
+            List<Task> removed = bitmapIndex.select(filter);
+            List<TaskView> before = new ArrayList<>(removed.size());
+            if (history.isEnabled()) {
+                for (Task task : removed) {
+                    before.add(TaskView.of(task));
+                }
+            }
+            List<Task> deleted = removeTasks(removed);
+            persistBulk(new ArrayList<>(), deleted);
+            if (!deleted.isEmpty()) {
+                history.record(new Change("批量删除 " + deleted.size() + " 个任务", before, new ArrayList<>()));
+            }
+            return deleted.size();
+        } finally {
+            taskLocks.unlockAll();
+            structureLock.unlock();
+            metrics.record(Operation.BULK, start);
+        }
+    }
+
+    /**
+     * 删除所有已完成的任务
+     */
+    public int deleteCompletedTasks() {
+        return deleteWhere(TaskFilter.completed());
+    }
+
+    /**
+     * 把满足条件的未完成任务全部标记为完成，返回实际修改的任务数
+     */
+    public int completeWhere(TaskFilter filter) {
+        long start = System.nanoTime();
+        structureLock.lock();
+        taskLocks.lockAll();
+        try {
+            List<Task> matched = bitmapIndex.select(filter.and(TaskFilter.incomplete()));
+            List<TaskView> before = history.isEnabled() ? new ArrayList<>() : null;
+            List<Task> changed = modifyTasks(matched, Operation.COMPLETE, task -> !task.isCompleted(),
+                    task -> task.setCompleted(true), before);
+            int completed = changed.size();
+            LocalDateTime now = LocalDateTime.now();
+            changed.addAll(generateOccurrences(dueForGeneration(changed, now), now));  // 和完成一起写入、一起撤销
+            persistBulk(changed, new ArrayList<>());
+            if (before != null && completed > 0) {
+                history.record(new Change("批量完成 " + completed + " 个任务", before, views(changed)));
+            }
+            return completed;
+        } finally {
+            taskLocks.unlockAll();
+            structureLock.unlock();
+            metrics.record(Operation.BULK, start);
+        }
+    }
+
+    /**
+     * 设置一组任务的优先级，ID支持前缀，找不到的ID跳过；返回实际修改的任务数
+     * @throws AmbiguousTaskIdException 某个ID前缀匹配到多个任务时（此时不做任何修改）
+     */
+    public int setPriority(Collection<String> ids, Task.Priority priority) {
+        long start = System.nanoTime();
+        structureLock.lock();
+        taskLocks.lockAll();
+        try {
+            Set<Task> matched = new LinkedHashSet<>();
+            for (String id : ids) {
+                idIndex.resolve(id).ifPresent(matched::add);
+            }
+            List<TaskView> before = history.isEnabled() ? new ArrayList<>() : null;
+            List<Task> changed = modifyTasks(new ArrayList<>(matched), Operation.SET_PRIORITY,
+                    task -> task.getPriority() != priority, task -> task.setPriority(priority), before);
+            persistBulk(changed, new ArrayList<>());
+            if (before != null && !changed.isEmpty()) {
+                history.record(new Change("批量设置优先级 " + changed.size() + " 个任务", before, views(changed)));
+            }
+            return changed.size();
+        } finally {
+            taskLocks.unlockAll();
+            structureLock.unlock();
+            metrics.record(Operation.BULK, start);
+        }
+    }
+
+    /**
+     * 从CSV或JSON Lines文件导入任务，返回导入结果
+     * 逐条解析、每 IMPORT_BATCH_SIZE 条添加一次，解析占用的内存与文件大小无关。
+     * 格式错误的记录和ID已存在的任务跳过；日志模式每批追加一次，其他模式全部导入后保存一次。
+     * 导入不记入撤销记录
+     * @param progress 每处理 PROGRESS_INTERVAL 条记录回调一次已处理的条数，可以为null
+     */
+    public TransferSummary importTasks(Path file, TaskRecordFormat format, LongConsumer progress) throws IOException {
+        long start = System.nanoTime();
+        long imported = 0;
+        long skipped = 0;
+        List<Task> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        try (TaskRecordReader reader = TaskRecordReader.open(file, format)) {
+            while (true) {
+                Task task;
+                try {
+                    task = reader.next();
+                } catch (IllegalArgumentException e) {
+                    if (++skipped <= MAX_REPORTED_ERRORS) {
+                        System.err.println("[错误] 第 " + reader.getRecordNumber() + " 条记录无效: " + e.getMessage());
+                    }
+                    continue;
+                }
+                if (task == null) {
+                    break;
+                }
+                batch.add(task);
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    int added = importBatch(batch);
+                    imported += added;
+                    skipped += batch.size() - added;
+                    batch.clear();
+                }
+                if (progress != null && reader.getRecordNumber() % PROGRESS_INTERVAL == 0) {
+                    progress.accept(reader.getRecordNumber());
+                }
+            }
+            int added = importBatch(batch);
+            imported += added;
+            skipped += batch.size() - added;
+        } finally {
+            if (!taskDao.isJournaled() && imported > 0) {
+                saver.saveNow();
+            }
+        }
+        return new TransferSummary("导入", imported, skipped, System.nanoTime() - start);
+    }
+
+    /**
+     * 添加一批导入的任务，跳过ID已存在的；返回实际添加的任务数
+     */
+    private int importBatch(List<Task> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        structureLock.lock();
+        taskLocks.lockAll();
+        try {
+            Set<String> ids = new HashSet<>();
+            List<Task> fresh = new ArrayList<>(batch.size());
+            for (Task task : batch) {
+                if (!idIndex.containsId(task.getId()) && ids.add(task.getId())) {
+                    fresh.add(task);
+                }
+            }
+            insertTasks(fresh);
+            if (taskDao.isJournaled()) {
+                persistBulk(fresh, new ArrayList<>());
+            } else {
+                for (Task task : fresh) {
+                    taskDao.markChanged(task.getId());  // 整个文件导入后再统一保存
+                }
+            }
+            return fresh.size();
+        } finally {
+            taskLocks.unlockAll();
+            structureLock.unlock();
+            metrics.record(Operation.BULK, start);
+        }
+    }
+
+    /**
+     * 把所有任务导出到CSV或JSON Lines文件（已存在则覆盖），返回导出结果
+     * 直接遍历任务列表逐条写出，不复制列表，也不在内存中拼接文件内容
+     * @param progress 每写出 PROGRESS_INTERVAL 条记录回调一次已写出的条数，可以为null
+     */
+    public TransferSummary exportTasks(Path file, TaskRecordFormat format, LongConsumer progress) throws IOException {
+        long start = System.nanoTime();
+        long exported = 0;
+        try (TaskRecordWriter writer = TaskRecordWriter.open(file, format)) {
+            for (Task task : tasks) {  // 不拷贝列表；导出开始后新增的任务不导出
+                writer.write(task);
+                exported++;
+                if (progress != null && exported % PROGRESS_INTERVAL == 0) {
+                    progress.accept(exported);
+                }
+            }
+        }
+        return new TransferSummary("导出", exported, 0, System.nanoTime() - start);
+    }
+
+    /**
+     * 应用从主节点复制来的一批变更（从节点使用），整批只写一次存储，不记入撤销记录
+     * 事件带有任务的完整内容，按ID覆盖或删除，重复应用结果相同；应用后的变更同样发布到本节点的变更流
+     */
+    void applyReplicated(List<TaskEvent> events) {
+        long start = System.nanoTime();
+        structureLock.lock();
+        taskLocks.lockAll();
+        try {
+            // 任务列表最后统一增删；索引随每个事件即时更新
+            Set<Task> added = new LinkedHashSet<>();
+            Set<Task> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+            Set<Task> changed = new LinkedHashSet<>();
+            List<Task> deleted = new ArrayList<>();
+            boolean cleared = false;
+            for (TaskEvent event : events) {
+                if (event.getType() == TaskEvent.Type.CLEARED) {
+                    tasks.clear();
+                    onTasksCleared();
+                    added.clear();
+                    removed.clear();
+                    changed.clear();
+                    deleted.clear();
+                    cleared = true;
+                    changeFeed.publish(TaskEvent.Type.CLEARED, null);
+                    continue;
+                }
+
+                TaskView view = event.getTask();
+                Task task = idIndex.get(view.getId());
+                if (event.getType() == TaskEvent.Type.DELETED) {
+                    if (task != null) {
+                        onTaskRemoved(task);
+                        if (!added.remove(task)) {
+                            removed.add(task);
+                        }
+                        changed.remove(task);
+                        deleted.add(task);
+                        changeFeed.publish(TaskEvent.Type.DELETED, view);
+                    }
+                } else if (task == null) {
+                    task = view.toTask();
+                    onTaskAdded(task);
+                    added.add(task);
+                    changed.add(task);
+                    changeFeed.publish(TaskEvent.Type.ADDED, view);
+                } else {
+                    TaskState state = TaskState.of(task);
+                    view.copyTo(task);
+                    searchIndex.update(task);
+                    onTaskChanged(task, state);
+                    changed.add(task);
+                    changeFeed.publish(event.getType(), view);
+                }
+            }
+            if (!removed.isEmpty()) {
+                tasks.removeAll(removed);
+            }
+            tasks.addAll(added);
+
+            // 清空和之后的变更一起写入：日志模式追加一次（清空记录在前），其他模式重写一次；
+            // 确认写入后才能记录复制位置。从节点不接受本地修改，撤销记录始终为空，不需要处理
+            persistBulk(cleared, new ArrayList<>(changed), deleted);
+        } finally {
+            taskLocks.unlockAll();
+            structureLock.unlock();
+            metrics.record(Operation.BULK, start);
+        }
+    }
+
+    /**
+     * 在结构锁和全部分段锁内修改多个任务，不逐个持久化、不记录撤销，由调用方统一 persistBulk 和记录
+     * @param before 不为null时收集被修改任务修改前的副本
+     * @return 实际修改的任务
+     */
+    private List<Task> modifyTasks(List<Task> targets, Operation operation, Predicate<Task> needsChange,
+                                   Consumer<Task> change, List<TaskView> before) {
+        List<Task> changed = new ArrayList<>();
+        TaskEvent.Type eventType = eventType(operation);
+        for (Task task : targets) {
+            if (!idIndex.contains(task) || !needsChange.test(task)) {
+                continue;
+            }
+            TaskState state = TaskState.of(task);
+            if (before != null) {
+                before.add(TaskView.of(task));
+            }
+            change.accept(task);
+            onTaskChanged(task, state);
+            changeFeed.publish(eventType, TaskView.of(task));
+            changed.add(task);
+        }
+        return changed;
+    }
+
+    /**
+     * 添加多个任务；不持久化，由调用方统一 persistBulk
+     */
+    private void insertTasks(List<Task> added) {
+        if (added.isEmpty()) {
+            return;
+        }
+        tasks.addAll(added);
+        for (Task task : added) {
+            onTaskAdded(task);
+            changeFeed.publish(TaskEvent.Type.ADDED, TaskView.of(task));
+        }
+    }
+
+    /**
+     * 删除多个任务，一次遍历任务列表，已经被删除的跳过；不持久化，由调用方统一 persistBulk
+     * @return 实际删除的任务
+     */
+    private List<Task> removeTasks(List<Task> removed) {
+        List<Task> deleted = new ArrayList<>();
+        Set<Task> victims = new HashSet<>();
+        for (Task task : removed) {
+            if (idIndex.contains(task) && victims.add(task)) {
+                deleted.add(task);
+            }
+        }
+        if (deleted.isEmpty()) {
+            return deleted;
+        }
+        tasks.removeAll(victims);
+        for (Task task : deleted) {
+            // 先从索引和快照版本中移除再发布，取得某个序号的快照时其中不会再有该序号之前删除的任务
+            onTaskRemoved(task);
+            changeFeed.publish(TaskEvent.Type.DELETED, TaskView.of(task));
+        }
+        return deleted;
+    }
+
+    /**
+     * 保存所有未写入的修改并停止后台保存线程，退出前调用
+     */
+    public void shutdown() {
+        if (recurrenceTicker != null) {
+            recurrenceTicker.shutdown();  // 不中断正在进行的生成，等它写完
+            try {
+                recurrenceTicker.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        saver.close();
+        taskDao.close();
+        try {
+            // 已经关闭的服务不再需要退出时保存，也让它可以被回收
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // JVM正在退出，钩子已经在运行
+        }
+    }
+
+    /**
+     * 获取保存统计信息
+     */
+    public String getSaveStatistics() {
+        return saver.getStatistics();
+    }
+
+    /**
+     * 获取任务数量
+     */
+    public int getTaskCount() {
+        return tasks.size();
+    }
+
+    /**
+     * 在任务的分段锁内修改任务并持久化
+     * 加锁后再确认任务仍在索引中，避免并发删除后又把任务写回存储
+     */
+    private boolean modifyTask(String id, Operation operation, Consumer<Task> change) {
+        return modifyTask(id, operation, change, operation == Operation.SET_RECURRENCE);
+    }
+
+    /**
+     * 带重复规则的任务（或这次修改会设置规则）改为持有结构锁和全部分段锁，
+     * 修改后到期时在同一次写入中生成下一次任务，并和修改记为同一条撤销记录。
+     * 检查规则和加锁之间被其他调用方设置了规则的少见情况，由定时检查生成
+     * @param setsRecurrence 修改是否可能设置重复规则
+     */
+    private boolean modifyTask(String id, Operation operation, Consumer<Task> change, boolean setsRecurrence) {
+        long start = System.nanoTime();
+        try {
+            Optional<Task> found = idIndex.resolve(id);
+            if (!found.isPresent()) {
+                return false;
+            }
+
+            Task task = found.get();
+            boolean mayGenerate = generateRecurring && (setsRecurrence || task.getRecurrence() != null);
+            ReentrantLock taskLock = taskLocks.forId(task.getId());
+            if (mayGenerate) {
+                structureLock.lock();
+                taskLocks.lockAll();
+            } else {
+                taskLock.lock();
+            }
+            try {
+                if (!idIndex.contains(task)) {
+                    return false;
+                }
+                TaskState before = TaskState.of(task);
+                TaskView previous = history.isEnabled() ? TaskView.of(task) : null;
+                change.accept(task);
+                onTaskChanged(task, before);
+                changeFeed.publish(eventType(operation), TaskView.of(task));
+                LocalDateTime now = LocalDateTime.now();
+                List<Task> generated = mayGenerate
+                        ? generateOccurrences(dueForGeneration(Collections.singletonList(task), now), now)
+                        : Collections.emptyList();
+                if (generated.isEmpty()) {
+                    persistChange(task);  // 自动保存
+                    if (previous != null) {
+                        history.record(Change.modified(previous, TaskView.of(task)));
+                    }
+                } else {
+                    List<Task> changed = new ArrayList<>();
+                    changed.add(task);
+                    changed.addAll(generated);
+                    persistBulk(changed, new ArrayList<>());
+                    if (previous != null) {
+                        history.record(new Change("修改任务: " + task.getTitle(),
+                                Collections.singletonList(previous), views(changed)));
+                    }
+                }
+            } finally {
+                if (mayGenerate) {
+                    taskLocks.unlockAll();
+                    structureLock.unlock();
+                } else {
+                    taskLock.unlock();
+                }
+            }
+            return true;
+        } finally {
+            metrics.record(operation, start);
+        }
+    }
+
+    private static TaskEvent.Type eventType(Operation operation) {
+        switch (operation) {
+            case COMPLETE:
+            case TOGGLE:
+                return TaskEvent.Type.STATUS_CHANGED;
+            case SET_PRIORITY:
+                return TaskEvent.Type.PRIORITY_CHANGED;
+            case SET_DUE_DATE:
+                return TaskEvent.Type.DUE_DATE_CHANGED;
+            default:
+                return TaskEvent.Type.UPDATED;
+        }
+    }
+
+    // 以下四个方法在对应的锁内调用，负责维护ID索引、统计计数、截止时间索引、搜索索引、位图索引、重复规则索引和快照版本
+
+    private void onTaskAdded(Task task) {
+        idIndex.add(task);
+        statistics.onAdded(task);
+        dueIndex.add(task);
+        searchIndex.add(task);
+        bitmapIndex.add(task);
+        recurrenceIndex.add(task);
+        VersionedTaskList current = versions;
+        if (current != null) {
+            current.put(LazyTaskView.entryOf(task));
+        }
+    }
+
+    private void onTaskRemoved(Task task) {
+        TaskState state = TaskState.of(task);
+        idIndex.remove(task);
+        statistics.onRemoved(state);
+        dueIndex.remove(task, state);
+        searchIndex.remove(task);
+        bitmapIndex.remove(task);
+        recurrenceIndex.remove(task, state);
+        VersionedTaskList current = versions;
+        if (current != null) {
+            current.remove(task.getId());
+        }
+    }
+
+    private void onTaskChanged(Task task, TaskState before) {
+        statistics.onChanged(task, before);
+        dueIndex.update(task, before);
+        if (before.completed != task.isCompleted() || before.priority != task.getPriority()) {
+            bitmapIndex.update(task);
+        }
+        recurrenceIndex.update(task, before);
+        VersionedTaskList current = versions;
+        if (current != null) {
+            current.put(LazyTaskView.entryOf(task));
+        }
+    }
+
+    private void onTasksCleared() {
+        idIndex.clear();
+        statistics.clear();
+        dueIndex.clear();
+        searchIndex.clear();
+        bitmapIndex.clear();
+        recurrenceIndex.clear();
+        VersionedTaskList current = versions;
+        if (current != null) {
+            current.clear();
+        }
+    }
+
+    /**
+     * 持久化单个任务的修改：日志模式只追加一条记录，分片模式只重写所在分片，否则按保存策略重写整个文件
+     */
+    private void persistChange(Task task) {
+        taskDao.markChanged(task.getId());  // 分片模式据此只重写涉及的分片
+        if (taskDao.isJournaled()) {
+            taskDao.appendPut(task);
+            compactIfNeeded();
+        } else {
+            saver.markDirty();
+        }
+    }
+
+    /**
+     * 持久化一次批量操作，只写一次存储：日志模式一次追加所有记录，
+     * 分片模式只重写涉及的分片，快照模式重写一次文件
+     * 在结构锁和全部分段锁内调用，写入期间不会有其他修改
+     */
+    private void persistBulk(List<Task> changed, List<Task> removed) {
+        persistBulk(false, changed, removed);
+    }
+
+    /**
+     * @param cleared 是否先清空再应用这些修改，清空与修改合为一次写入
+     */
+    private void persistBulk(boolean cleared, List<Task> changed, List<Task> removed) {
+        if (!cleared && changed.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        if (cleared) {
+            taskDao.markAllChanged();
+        }
+        for (Task task : changed) {
+            taskDao.markChanged(task.getId());
+        }
+        List<String> removedIds = new ArrayList<>(removed.size());
+        for (Task task : removed) {
+            taskDao.markChanged(task.getId());
+            removedIds.add(task.getId());
+        }
+        if (taskDao.isJournaled()) {
+            taskDao.appendBatch(cleared, changed, removedIds);
+            compactIfNeeded();
+        } else {
+            saver.saveNow();
+        }
+    }
+
+    /**
+     * 持久化任务的删除
+     */
+    private void persistRemoval(Task task) {
+        taskDao.markChanged(task.getId());
+        if (taskDao.isJournaled()) {
+            taskDao.appendDelete(task.getId());
+            compactIfNeeded();
+        } else {
+            saver.markDirty();
+        }
+    }
+
+    /**
+     * 持久化清空操作
+     */
+    private void persistClear() {
+        taskDao.markAllChanged();
+        if (taskDao.isJournaled()) {
+            taskDao.appendClear();
+        } else {
+            saver.markDirty();
+        }
+    }
+
+    /**
+     * 供保存线程获取任务列表的拷贝（不需要加锁；拷贝期间的修改会再次标记，由下一次保存写入）
+     */
+    private List<Task> snapshotTasks() {
+        return tasks.toList();
+    }
+
+    private void compactIfNeeded() {
+        if (taskDao.needsCompaction()) {
+            taskDao.compactAsync(this::snapshotTasks);
+        }
+    }
+
+
+}
\ No newline at end of file
@@ -0,0 +1,284 @@
+package service;
+
+import dao.TaskDao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * TodoStoreManager类 - 在一个进程里管理多个用户/清单的 TodoService
+ *
+ * 每个清单对应根目录下的一个子目录，第一次访问时加载。已打开的清单超过数量上限或任务总数上限时，
+ * 按最近最少使用的顺序淘汰，淘汰前写入未保存的修改。
+ *
+ * 并发：命中时只做一次 ConcurrentHashMap 查找，不加全局锁；加载和淘汰只锁住对应清单，
+ * 一个清单加载或保存得慢不会挡住其他清单。正在使用中的清单不会被淘汰
+ */
+public class TodoStoreManager {
+    private static final int DEFAULT_MAX_OPEN_LISTS = 100;
+    private static final long DEFAULT_MAX_OPEN_TASKS = 1_000_000;
+    private static final Pattern LIST_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final Path root;
+    private final int maxOpenLists;
+    private final long maxOpenTasks;
+    private final Function<Path, TodoService> opener;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong openTasks = new AtomicLong();  // 已打开清单的任务总数，每次使用清单后更新
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * 一个清单的缓存项，加载、使用计数和淘汰都在它自己的锁内进行
+     * 锁内会读写磁盘（加载、保存），用 ReentrantLock 而不是 synchronized：HTTP接口运行在虚拟线程上，
+     * 在监视器内阻塞会占住载体线程，几个慢清单就能拖住整个服务
+     */
+    private static class Entry {
+        final String listId;
+        final ReentrantLock lock = new ReentrantLock();
+        volatile TodoService service;  // 在锁内赋值；volatile 保证淘汰线程不加锁也能看到
+        int pins;                 // 正在使用该清单的调用数
+        boolean evicted;
+        volatile int taskCount;   // 上次使用后的任务数
+        volatile long lastAccess;
+
+        Entry(String listId) {
+            this.listId = listId;
+        }
+    }
+
+    public TodoStoreManager() {
+        // 根目录默认为数据目录下的 lists，可通过系统属性 todo.lists.root 指定
+        this(Paths.get(System.getProperty("todo.lists.root",
+                        Paths.get(System.getProperty("todo.dataDir", "."), "lists").toString())),
+                Integer.getInteger("todo.lists.maxOpen", DEFAULT_MAX_OPEN_LISTS),
+                Long.getLong("todo.lists.maxTasks", DEFAULT_MAX_OPEN_TASKS));
+    }
+
+    public TodoStoreManager(Path root, int maxOpenLists, long maxOpenTasks) {
+        this(root, maxOpenLists, maxOpenTasks, dir -> new TodoService(new TaskDao(dir)));
+    }
+
+    /**
+     * @param opener 根据清单目录创建服务，例如指定不同的持久化模式；只需创建，打开清单时由管理器调用 start()
+     */
+    public TodoStoreManager(Path root, int maxOpenLists, long maxOpenTasks, Function<Path, TodoService> opener) {
+        if (maxOpenLists <= 0) {
+            throw new IllegalArgumentException("最多打开的清单数必须为正数: " + maxOpenLists);
+        }
+        this.root = root;
+        this.maxOpenLists = maxOpenLists;
+        this.maxOpenTasks = maxOpenTasks;
+        this.opener = opener;
+    }
+
+    /**
+     * 在指定清单上执行操作，执行期间该清单不会被淘汰
+     * 不要把 service 保存到 action 之外使用，清单随后可能被淘汰并关闭
+     * @throws IllegalArgumentException 清单ID不合法时（只允许字母、数字、_ 和 -）
+     */
+    public <R> R withList(String listId, Function<TodoService, R> action) {
+        Entry entry = acquire(listId);
+        try {
+            return action.apply(entry.service);
+        } finally {
+            // 操作可能增删了任务，用完后重新检查上限
+            if (release(entry)) {
+                evictIfNeeded();
+            }
+        }
+    }
+
+    private Entry acquire(String listId) {
+        if (!LIST_ID.matcher(listId).matches()) {
+            throw new IllegalArgumentException("无效的清单ID: " + listId);
+        }
+
+        while (true) {
+            Entry entry = entries.computeIfAbsent(listId, Entry::new);
+            boolean loaded = false;
+            entry.lock.lock();
+            try {
+                if (entry.evicted) {
+                    continue;  // 刚被淘汰并移出，重新取一个新的缓存项
+                }
+                if (entry.service == null) {
+                    // 只锁住这一个清单，其他清单照常访问
+                    TodoService service = open(listId);
+                    entry.taskCount = service.getTaskCount();
+                    openTasks.addAndGet(entry.taskCount);
+                    entry.service = service;
+                    misses.incrementAndGet();
+                    loaded = true;
+                } else {
+                    hits.incrementAndGet();
+                }
+                entry.pins++;
+                entry.lastAccess = clock.incrementAndGet();
+            } finally {
+                entry.lock.unlock();
+            }
+            if (loaded) {
+                evictIfNeeded();
+            }
+            return entry;
+        }
+    }
+
+    private TodoService open(String listId) {
+        Path dir = root.resolve(listId);
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建清单目录失败: " + dir, e);
+        }
+        TodoService service = opener.apply(dir);
+        service.start();
+        return service;
+    }
+
+    /**
+     * 更新清单的任务数，返回是否超出上限
+     */
+    private boolean release(Entry entry) {
+        entry.lock.lock();
+        try {
+            entry.pins--;
+            if (!entry.evicted) {
+                int count = entry.service.getTaskCount();
+                openTasks.addAndGet(count - entry.taskCount);
+                entry.taskCount = count;
+            }
+        } finally {
+            entry.lock.unlock();
+        }
+        return overLimit();
+    }
+
+    private boolean overLimit() {
+        return entries.size() > maxOpenLists || openTasks.get() > maxOpenTasks;
+    }
+
+    /**
+     * 超出上限时按最近访问时间从旧到新淘汰，跳过正在使用的清单
+     * 同一时间只有一个线程做淘汰，其他线程不等待
+     */
+    private void evictIfNeeded() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (!overLimit()) {
+                return;
+            }
+            List<Entry> candidates = new ArrayList<>(entries.values());
+            candidates.sort(Comparator.comparingLong(entry -> entry.lastAccess));
+            for (Entry entry : candidates) {
+                if (!overLimit()) {
+                    break;
+                }
+                evict(entry);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 淘汰一个清单；正在使用或尚未加载完成时跳过
+     * 保存和移出都在该清单的锁内完成，再次打开同一清单的调用会等到数据写完才重新加载
+     */
+    private void evict(Entry entry) {
+        entry.lock.lock();
+        try {
+            if (entry.pins > 0 || entry.service == null || entry.evicted) {
+                return;
+            }
+            entry.evicted = true;
+            entry.service.shutdown();  // 写入未保存的修改
+            openTasks.addAndGet(-entry.taskCount);
+            entries.remove(entry.listId, entry);
+            evictions.incrementAndGet();
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * 保存并关闭所有清单，退出前调用
+     */
+    public void closeAll() {
+        for (Entry entry : new ArrayList<>(entries.values())) {
+            entry.lock.lock();
+            try {
+                if (entry.service != null && !entry.evicted) {
+                    entry.evicted = true;
+                    entry.service.shutdown();
+                    openTasks.addAndGet(-entry.taskCount);
+                    entries.remove(entry.listId, entry);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 当前已打开的清单数
+     */
+    public int getOpenListCount() {
+        return entries.size();
+    }
+
+    /**
+     * 已打开清单的任务总数
+     */
+    public long getOpenTaskCount() {
+        return openTasks.get();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * 命中率，0~1
+     */
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public String getStatistics() {
+        return String.format("已打开清单: %d/%d | 任务: %d/%d | 命中: %d | 未命中: %d | 命中率: %.1f%% | 淘汰: %d",
+                getOpenListCount(), maxOpenLists, getOpenTaskCount(), maxOpenTasks, getHitCount(), getMissCount(),
+                getHitRate() * 100, getEvictionCount());
+    }
+}
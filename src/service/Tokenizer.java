@@ -0,0 +1,81 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tokenizer类 - 搜索分词
+ * 英文和数字按连续字母数字切分并转小写；中日韩文字没有空格分隔，
+ * 建索引时同时输出单字和相邻两字，查询时两个字以上只用相邻两字，提高准确度
+ */
+final class Tokenizer {
+    private Tokenizer() {
+    }
+
+    /**
+     * 建索引用的分词
+     */
+    static List<String> forIndex(String text) {
+        return tokenize(text, true);
+    }
+
+    /**
+     * 查询用的分词
+     */
+    static List<String> forQuery(String text) {
+        return tokenize(text, false);
+    }
+
+    private static List<String> tokenize(String text, boolean indexing) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = text.codePointAt(i);
+            if (isCjk(codePoint)) {
+                int start = i;
+                while (i < length && isCjk(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                addCjkTokens(text.substring(start, i), indexing, tokens);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                int start = i;
+                while (i < length) {
+                    int c = text.codePointAt(i);
+                    if (!Character.isLetterOrDigit(c) || isCjk(c)) {
+                        break;
+                    }
+                    i += Character.charCount(c);
+                }
+                tokens.add(text.substring(start, i).toLowerCase());
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+        return tokens;
+    }
+
+    private static void addCjkTokens(String run, boolean indexing, List<String> tokens) {
+        int[] chars = run.codePoints().toArray();
+        if (indexing || chars.length == 1) {
+            for (int c : chars) {
+                tokens.add(new String(Character.toChars(c)));
+            }
+        }
+        for (int j = 0; j + 1 < chars.length; j++) {
+            tokens.add(new String(chars, j, 2));
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
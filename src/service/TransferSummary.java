@@ -0,0 +1,49 @@
+package service;
+
+/**
+ * TransferSummary类 - 一次导入或导出的结果
+ */
+public class TransferSummary {
+    private final String operation;
+    private final long records;
+    private final long skipped;
+    private final long elapsedNanos;
+
+    public TransferSummary(String operation, long records, long skipped, long elapsedNanos) {
+        this.operation = operation;
+        this.records = records;
+        this.skipped = skipped;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * 成功导入或导出的记录数
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * 跳过的记录数（格式错误或ID已存在）
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * 每秒处理的记录数（含跳过的）
+     */
+    public double getRecordsPerSecond() {
+        return elapsedNanos == 0 ? 0 : (records + skipped) * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s完成: %d 条, 跳过 %d 条, 耗时 %.1f s, %.0f 条/秒",
+                operation, records, skipped, elapsedNanos / 1_000_000_000.0, getRecordsPerSecond());
+    }
+}
@@ -0,0 +1,138 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static service.TaskListSnapshot.BITS;
+import static service.TaskListSnapshot.MASK;
+import static service.TaskListSnapshot.WIDTH;
+
+/**
+ * VersionedTaskList类 - 维护任务列表的不可变版本，供快照读取
+ *
+ * 和位图索引一样每个任务占一个只追加的槽位，删除后槽位留空，空槽位过多时整体重建。
+ * 修改复制 O(log32 n) 个节点生成新版本；读取只读一个volatile引用，不加锁。
+ * 槽位中是 TaskView，或懒加载任务的 LazyTaskView（读到时才加载详情）
+ */
+class VersionedTaskList {
+    private static final int COMPACT_MIN_SLOTS = 1024;
+
+    private volatile TaskListSnapshot current;
+    private final Map<String, Integer> slots = new HashMap<>();  // 任务ID -> 槽位，只在锁内访问
+
+    VersionedTaskList(List<Object> entries) {
+        this.current = build(entries, 0);
+        for (int i = 0; i < entries.size(); i++) {
+            slots.put(LazyTaskView.idOf(entries.get(i)), i);
+        }
+    }
+
+    TaskListSnapshot snapshot() {
+        return current;
+    }
+
+    /**
+     * 添加或替换任务，entry 为 LazyTaskView.entryOf 的结果
+     */
+    synchronized void put(Object entry) {
+        String id = LazyTaskView.idOf(entry);
+        TaskListSnapshot snapshot = current;
+        Integer slot = slots.get(id);
+        if (slot != null) {
+            current = new TaskListSnapshot(set(snapshot.root, snapshot.shift, slot, entry), snapshot.shift,
+                    snapshot.slotCount, snapshot.size(), snapshot.getVersion() + 1);
+            return;
+        }
+
+        Object[] root = snapshot.root;
+        int shift = snapshot.shift;
+        int index = snapshot.slotCount;
+        if (index == 1 << (shift + BITS)) {
+            // 树已满，加高一层
+            Object[] newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            root = newRoot;
+            shift += BITS;
+        }
+        slots.put(id, index);
+        current = new TaskListSnapshot(set(root, shift, index, entry), shift,
+                index + 1, snapshot.size() + 1, snapshot.getVersion() + 1);
+    }
+
+    synchronized void remove(String id) {
+        Integer slot = slots.remove(id);
+        if (slot == null) {
+            return;
+        }
+        TaskListSnapshot snapshot = current;
+        TaskListSnapshot next = new TaskListSnapshot(set(snapshot.root, snapshot.shift, slot, null), snapshot.shift,
+                snapshot.slotCount, snapshot.size() - 1, snapshot.getVersion() + 1);
+        if (next.slotCount >= COMPACT_MIN_SLOTS && next.size() < next.slotCount / 2) {
+            next = compact(next);
+        }
+        current = next;
+    }
+
+    synchronized void clear() {
+        slots.clear();
+        current = build(new ArrayList<>(), current.getVersion() + 1);
+    }
+
+    /**
+     * 去掉空槽位重新编号，内容不变
+     */
+    private TaskListSnapshot compact(TaskListSnapshot snapshot) {
+        List<Object> entries = new ArrayList<>(snapshot.size());
+        snapshot.entries().forEachRemaining(entries::add);  // 不读取懒加载任务的详情
+        slots.clear();
+        for (int i = 0; i < entries.size(); i++) {
+            slots.put(LazyTaskView.idOf(entries.get(i)), i);
+        }
+        return build(entries, snapshot.getVersion());
+    }
+
+    /**
+     * 复制从根到index的路径并设置槽位，路径外的节点与原来的树共享
+     */
+    private static Object[] set(Object[] node, int shift, int index, Object entry) {
+        Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+        if (shift == 0) {
+            copy[index & MASK] = entry;
+        } else {
+            int child = (index >>> shift) & MASK;
+            copy[child] = set((Object[]) copy[child], shift - BITS, index, entry);
+        }
+        return copy;
+    }
+
+    /**
+     * 自底向上一次建好整棵树，不逐个复制路径
+     */
+    private static TaskListSnapshot build(List<?> views, long version) {
+        List<Object[]> nodes = new ArrayList<>();
+        for (int i = 0; i < views.size(); i += WIDTH) {
+            Object[] leaf = new Object[WIDTH];
+            for (int j = 0; j < WIDTH && i + j < views.size(); j++) {
+                leaf[j] = views.get(i + j);
+            }
+            nodes.add(leaf);
+        }
+        int shift = 0;
+        while (nodes.size() > 1) {
+            List<Object[]> parents = new ArrayList<>();
+            for (int i = 0; i < nodes.size(); i += WIDTH) {
+                Object[] parent = new Object[WIDTH];
+                for (int j = 0; j < WIDTH && i + j < nodes.size(); j++) {
+                    parent[j] = nodes.get(i + j);
+                }
+                parents.add(parent);
+            }
+            nodes = parents;
+            shift += BITS;
+        }
+        Object[] root = nodes.isEmpty() ? new Object[WIDTH] : nodes.get(0);
+        return new TaskListSnapshot(root, shift, views.size(), views.size(), version);
+    }
+}
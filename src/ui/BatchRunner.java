@@ -0,0 +1,274 @@
+package ui;
+
+import model.Recurrence;
+import model.Task;
+import service.AmbiguousTaskIdException;
+import service.TaskBatch;
+import service.TodoService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * BatchRunner类 - 非交互的批处理模式
+ *
+ * 每行一条命令，# 开头为注释：
+ *   add 标题 | 描述
+ *   complete ID
+ *   toggle ID
+ *   update ID 新标题 | 新描述（省略 | 时不改描述）
+ *   delete ID
+ *   priority ID low|medium|high
+ *   due ID yyyy-MM-dd[ HH:mm]|none
+ *   repeat ID daily|weekly|monthly|每3天|none
+ * ID 可以写 $last，表示本批处理中最近添加的任务。
+ *
+ * 整个批处理是一个事务：先检查全部命令的语法，再依次记录到 TaskBatch，全部成功后一次性应用并只写一次存储；
+ * 任何一条失败都会放弃全部修改，提交前其他调用方看不到本批的修改
+ */
+public class BatchRunner {
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final String LAST_ADDED = "$last";
+
+    private final TodoService todoService;
+    private String lastAddedId;
+
+    public BatchRunner(TodoService todoService) {
+        this.todoService = todoService;
+    }
+
+    /**
+     * 一条解析后的命令
+     */
+    private static class Command {
+        final int line;
+        final String name;
+        final String id;
+        final String text;
+        final String extra;
+
+        Command(int line, String name, String id, String text, String extra) {
+            this.line = line;
+            this.name = name;
+            this.id = id;
+            this.text = text;
+            this.extra = extra;
+        }
+    }
+
+    /**
+     * 执行脚本，返回退出码：0 成功，1 失败且未做任何修改
+     */
+    public int run(Reader script) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(script)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return run(lines);
+    }
+
+    public int run(List<String> lines) {
+        List<Command> commands = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                commands.add(parse(i + 1, line));
+            } catch (IllegalArgumentException e) {
+                System.err.println("[错误] 第 " + (i + 1) + " 行: " + e.getMessage());
+                return 1;
+            }
+        }
+
+        long start = System.nanoTime();
+        TaskBatch batch = todoService.beginBatch();
+        for (Command command : commands) {
+            String error;
+            try {
+                error = execute(batch, command);
+            } catch (AmbiguousTaskIdException e) {
+                error = e.getMessage();
+            }
+            if (error != null) {
+                // 未提交的批处理直接丢弃，任务列表没有被改动过
+                System.err.println("[错误] 第 " + command.line + " 行: " + error + "，已放弃本批全部修改");
+                return 1;
+            }
+        }
+        batch.commit();
+
+        long elapsedNanos = System.nanoTime() - start;
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.printf("[系统] 批处理完成: %d 条命令, 耗时 %.1f ms, %.0f ops/sec%n",
+                commands.size(), elapsedNanos / 1_000_000.0, seconds > 0 ? commands.size() / seconds : 0.0);
+        return 0;
+    }
+
+    private Command parse(int line, String text) {
+        String[] parts = text.split("\\s+", 2);
+        String name = parts[0].toLowerCase();
+        String rest = parts.length > 1 ? parts[1].trim() : "";
+
+        switch (name) {
+            case "add": {
+                String[] fields = splitFields(rest);
+                if (fields[0].isEmpty()) {
+                    throw new IllegalArgumentException("任务标题不能为空");
+                }
+                return new Command(line, name, null, fields[0], fields[1] != null ? fields[1] : "");
+            }
+            case "complete":
+            case "toggle":
+            case "delete":
+                requireId(rest);
+                return new Command(line, name, rest, null, null);
+            case "update": {
+                String[] idAndRest = rest.split("\\s+", 2);
+                requireId(idAndRest[0]);
+                String[] fields = splitFields(idAndRest.length > 1 ? idAndRest[1] : "");
+                return new Command(line, name, idAndRest[0], fields[0], fields[1]);
+            }
+            case "priority": {
+                String[] idAndValue = rest.split("\\s+");
+                if (idAndValue.length != 2) {
+                    throw new IllegalArgumentException("用法: priority ID low|medium|high");
+                }
+                parsePriority(idAndValue[1]);
+                return new Command(line, name, idAndValue[0], idAndValue[1], null);
+            }
+            case "due": {
+                String[] idAndValue = rest.split("\\s+", 2);
+                if (idAndValue.length != 2) {
+                    throw new IllegalArgumentException("用法: due ID yyyy-MM-dd[ HH:mm]|none");
+                }
+                parseDueDate(idAndValue[1]);
+                return new Command(line, name, idAndValue[0], idAndValue[1], null);
+            }
+            case "repeat": {
+                String[] idAndValue = rest.split("\\s+", 2);
+                if (idAndValue.length != 2) {
+                    throw new IllegalArgumentException("用法: repeat ID daily|weekly|monthly|每3天|none");
+                }
+                parseRecurrence(idAndValue[1]);
+                return new Command(line, name, idAndValue[0], idAndValue[1], null);
+            }
+            default:
+                throw new IllegalArgumentException("未知命令: " + parts[0]);
+        }
+    }
+
+    /**
+     * 执行一条命令，成功返回null，失败返回错误信息
+     */
+    private String execute(TaskBatch batch, Command command) {
+        if (command.name.equals("add")) {
+            Task task = batch.addTask(command.text, command.extra);
+            lastAddedId = task.getId();
+            return null;
+        }
+
+        String id = command.id;
+        if (id.equals(LAST_ADDED)) {
+            if (lastAddedId == null) {
+                return "$last 之前没有 add 命令";
+            }
+            id = lastAddedId;
+        }
+
+        boolean found;
+        switch (command.name) {
+            case "complete":
+                found = batch.completeTask(id);
+                break;
+            case "toggle":
+                found = batch.toggleTaskStatus(id);
+                break;
+            case "delete":
+                found = batch.deleteTask(id);
+                break;
+            case "update":
+                found = batch.updateTask(id, command.text, command.extra);
+                break;
+            case "priority":
+                found = batch.setPriority(id, parsePriority(command.text));
+                break;
+            case "due":
+                found = batch.setDueDate(id, parseDueDate(command.text).orElse(null));
+                break;
+            case "repeat":
+                found = batch.setRecurrence(id, parseRecurrence(command.text).orElse(null));
+                break;
+            default:
+                return "未知命令: " + command.name;
+        }
+        return found ? null : "未找到任务 " + command.id;
+    }
+
+    /**
+     * 把 "标题 | 描述" 拆成两部分，没有 | 时描述为null
+     */
+    private static String[] splitFields(String text) {
+        int separator = text.indexOf('|');
+        if (separator < 0) {
+            return new String[]{text.trim(), null};
+        }
+        return new String[]{text.substring(0, separator).trim(), text.substring(separator + 1).trim()};
+    }
+
+    private static void requireId(String id) {
+        if (id.isEmpty() || id.contains(" ")) {
+            throw new IllegalArgumentException("需要一个任务ID");
+        }
+    }
+
+    private static Task.Priority parsePriority(String value) {
+        switch (value.toLowerCase()) {
+            case "low":
+            case "低":
+                return Task.Priority.LOW;
+            case "medium":
+            case "中":
+                return Task.Priority.MEDIUM;
+            case "high":
+            case "高":
+                return Task.Priority.HIGH;
+            default:
+                throw new IllegalArgumentException("无效的优先级: " + value);
+        }
+    }
+
+    private static Optional<Recurrence> parseRecurrence(String value) {
+        if (value.equalsIgnoreCase("none")) {
+            return Optional.empty();
+        }
+        return Optional.of(Recurrence.parse(value));
+    }
+
+    private static Optional<LocalDateTime> parseDueDate(String value) {
+        if (value.equalsIgnoreCase("none")) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(LocalDateTime.parse(value, DATE_TIME_FORMAT));
+        } catch (DateTimeParseException e) {
+            try {
+                return Optional.of(LocalDate.parse(value).atStartOfDay());
+            } catch (DateTimeParseException ignored) {
+                throw new IllegalArgumentException("无效的时间: " + value);
+            }
+        }
+    }
+}
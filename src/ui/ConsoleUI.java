@@ -1,20 +1,56 @@
 package ui;
 
+import dao.TaskRecordFormat;
+import metrics.TodoMetrics;
+import model.Recurrence;
 import model.Task;
+import service.AmbiguousTaskIdException;
+import service.ChangeFeed;
+import service.TaskFilter;
+import service.TaskPage;
+import service.TaskEvent;
+import service.TaskQuery;
 import service.TodoService;
+import service.TransferSummary;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.Scanner;
+import java.util.function.IntFunction;
 
 /**
  * ConsoleUI类 - 控制台用户界面
  */
 public class ConsoleUI {
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final int PAGE_SIZE = 20;
+    private static final int SEARCH_LIMIT = 20;
+
     private TodoService todoService;
     private Scanner scanner;
+    private final ChangeFeed.Subscription changes;  // 上次查看之后的变更
+    // 任务列表整页写入缓冲区后一次输出，而不是逐行 System.out.println
+    private final PrintWriter out = new PrintWriter(
+            new BufferedWriter(new OutputStreamWriter(System.out, System.out.charset()), 64 * 1024), false);
 
     public ConsoleUI() {
         this.todoService = new TodoService();
+        todoService.start();
         this.scanner = new Scanner(System.in);
+        this.changes = todoService.getChangeFeed().subscribe();
     }
 
     /**
@@ -30,40 +66,97 @@ public class ConsoleUI {
             showMenu();
             String choice = scanner.nextLine().trim();
 
-            switch (choice) {
-                case "1":
-                    addTask();
-                    break;
-                case "2":
-                    listAllTasks();
-                    break;
-                case "3":
-                    listIncompleteTasks();
-                    break;
-                case "4":
-                    listCompletedTasks();
-                    break;
-                case "5":
-                    toggleTaskStatus();
-                    break;
-                case "6":
-                    updateTask();
-                    break;
-                case "7":
-                    deleteTask();
-                    break;
-                case "8":
-                    setPriority();
-                    break;
-                case "9":
-                    showStatistics();
-                    break;
-                case "0":
-                    running = false;
-                    System.out.println("\n感谢使用，再见！");
-                    break;
-                default:
-                    System.out.println("\n无效的选项，请重新选择！\n");
+            try {
+                switch (choice) {
+                    case "1":
+                        addTask();
+                        break;
+                    case "2":
+                        listAllTasks();
+                        break;
+                    case "3":
+                        listIncompleteTasks();
+                        break;
+                    case "4":
+                        listCompletedTasks();
+                        break;
+                    case "5":
+                        toggleTaskStatus();
+                        break;
+                    case "6":
+                        updateTask();
+                        break;
+                    case "7":
+                        deleteTask();
+                        break;
+                    case "8":
+                        setPriority();
+                        break;
+                    case "9":
+                        showStatistics();
+                        break;
+                    case "10":
+                        setDueDate();
+                        break;
+                    case "11":
+                        listOverdueTasks();
+                        break;
+                    case "12":
+                        listNextDueTasks();
+                        break;
+                    case "13":
+                        listTasksDueBetween();
+                        break;
+                    case "14":
+                        searchTasks();
+                        break;
+                    case "15":
+                        showMetrics();
+                        break;
+                    case "16":
+                        sortFilterView();
+                        break;
+                    case "17":
+                        undo();
+                        break;
+                    case "18":
+                        redo();
+                        break;
+                    case "19":
+                        archiveCompleted();
+                        break;
+                    case "20":
+                        browseArchive();
+                        break;
+                    case "21":
+                        showRecentChanges();
+                        break;
+                    case "22":
+                        bulkOperations();
+                        break;
+                    case "23":
+                        importTasks();
+                        break;
+                    case "24":
+                        exportTasks();
+                        break;
+                    case "25":
+                        setRecurrence();
+                        break;
+                    case "0":
+                        running = false;
+                        todoService.shutdown();  // 写入尚未保存的修改
+                        System.out.println("\n感谢使用，再见！");
+                        break;
+                    default:
+                        System.out.println("\n无效的选项，请重新选择！\n");
+                }
+            } catch (AmbiguousTaskIdException e) {
+                System.out.println("✗ " + e.getMessage());
+                for (String candidate : e.getCandidates()) {
+                    System.out.println("  " + candidate);
+                }
+                System.out.println();
             }
         }
         scanner.close();
@@ -83,6 +176,22 @@ public class ConsoleUI {
         System.out.println("7. 删除任务");
         System.out.println("8. 设置优先级");
         System.out.println("9. 查看统计信息");
+        System.out.println("10. 设置截止时间");
+        System.out.println("11. 查看已过期任务");
+        System.out.println("12. 查看即将到期任务");
+        System.out.println("13. 按时间段查看任务");
+        System.out.println("14. 搜索任务");
+        System.out.println("15. 查看性能指标");
+        System.out.println("16. 排序/筛选视图");
+        System.out.println("17. 撤销");
+        System.out.println("18. 重做");
+        System.out.println("19. 归档已完成任务");
+        System.out.println("20. 查看归档");
+        System.out.println("21. 查看最近变更");
+        System.out.println("22. 批量操作");
+        System.out.println("23. 导入任务");
+        System.out.println("24. 导出任务");
+        System.out.println("25. 设置重复规则");
         System.out.println("0. 退出");
         System.out.println("===========================");
         System.out.print("请选择操作: ");
@@ -114,8 +223,7 @@ public class ConsoleUI {
      */
     private void listAllTasks() {
         System.out.println("\n--- 所有任务 ---");
-        List<Task> tasks = todoService.getAllTasks();
-        displayTasks(tasks);
+        browsePages(pageIndex -> todoService.getTaskPage(pageIndex, PAGE_SIZE));
     }
 
     /**
@@ -123,8 +231,7 @@ public class ConsoleUI {
      */
     private void listIncompleteTasks() {
         System.out.println("\n--- 未完成任务 ---");
-        List<Task> tasks = todoService.getIncompleteTasks();
-        displayTasks(tasks);
+        browsePages(pageIndex -> todoService.getIncompleteTaskPage(pageIndex, PAGE_SIZE));
     }
 
     /**
@@ -132,8 +239,56 @@ public class ConsoleUI {
      */
     private void listCompletedTasks() {
         System.out.println("\n--- 已完成任务 ---");
-        List<Task> tasks = todoService.getCompletedTasks();
-        displayTasks(tasks);
+        browsePages(pageIndex -> todoService.getCompletedTaskPage(pageIndex, PAGE_SIZE));
+    }
+
+    /**
+     * 分页浏览任务，支持上一页、下一页和跳转
+     */
+    private void browsePages(IntFunction<TaskPage> pages) {
+        int pageIndex = 0;
+        while (true) {
+            TaskPage page = pages.apply(pageIndex);
+            if (page.getTotalCount() == 0) {
+                System.out.println("暂无任务\n");
+                return;
+            }
+
+            renderTasks(page.getTasks(), page.getOffset());
+            if (page.getTotalPages() == 1) {
+                System.out.println();
+                return;
+            }
+
+            System.out.println("第 " + (pageIndex + 1) + "/" + page.getTotalPages()
+                    + " 页，共 " + page.getTotalCount() + " 个任务");
+            System.out.print("n 下一页 | p 上一页 | 输入页码跳转 | 直接回车返回: ");
+            String command = scanner.nextLine().trim();
+
+            if (command.isEmpty()) {
+                System.out.println();
+                return;
+            } else if (command.equalsIgnoreCase("n")) {
+                if (page.hasNext()) {
+                    pageIndex++;
+                } else {
+                    System.out.println("已经是最后一页");
+                }
+            } else if (command.equalsIgnoreCase("p")) {
+                if (page.hasPrevious()) {
+                    pageIndex--;
+                } else {
+                    System.out.println("已经是第一页");
+                }
+            } else {
+                try {
+                    int target = Integer.parseInt(command);
+                    pageIndex = Math.max(0, Math.min(target, page.getTotalPages()) - 1);
+                } catch (NumberFormatException e) {
+                    System.out.println("无效的输入！");
+                }
+            }
+        }
     }
 
     /**
@@ -145,10 +300,21 @@ public class ConsoleUI {
             return;
         }
 
+        renderTasks(tasks, 0);
+        System.out.println();
+    }
+
+    /**
+     * 把任务写入缓冲区后一次性输出，offset为第一个任务之前的序号
+     */
+    private void renderTasks(List<Task> tasks, long offset) {
+        StringBuilder sb = new StringBuilder(tasks.size() * 64);
         for (int i = 0; i < tasks.size(); i++) {
-            System.out.println((i + 1) + ". " + tasks.get(i).toShortString());
+            sb.append(offset + i + 1).append(". ");
+            tasks.get(i).appendShortString(sb).append(System.lineSeparator());
         }
-        System.out.println();
+        out.append(sb);
+        out.flush();
     }
 
     /**
@@ -259,6 +425,465 @@ public class ConsoleUI {
     private void showStatistics() {
         System.out.println("\n--- 统计信息 ---");
         System.out.println(todoService.getStatistics());
+        System.out.println(todoService.getSaveStatistics());
+        System.out.println();
+    }
+
+    /**
+     * 显示各操作的延迟和存储I/O指标，同样的数据也可以通过JMX（todo:type=Metrics）查看
+     */
+    private void showMetrics() {
+        System.out.println("\n--- 性能指标 ---");
+        for (String line : TodoMetrics.getInstance().report()) {
+            System.out.println(line);
+        }
+        System.out.println();
+    }
+
+    /**
+     * 撤销最近一次修改
+     */
+    private void undo() {
+        Optional<String> undone = todoService.undo();
+        if (undone.isPresent()) {
+            System.out.println("✓ 已撤销: " + undone.get() + "（还可撤销 " + todoService.getUndoCount() + " 步）\n");
+        } else {
+            System.out.println("✗ 没有可撤销的操作\n");
+        }
+    }
+
+    /**
+     * 重做最近一次撤销的修改
+     */
+    private void redo() {
+        Optional<String> redone = todoService.redo();
+        if (redone.isPresent()) {
+            System.out.println("✓ 已重做: " + redone.get() + "（还可重做 " + todoService.getRedoCount() + " 步）\n");
+        } else {
+            System.out.println("✗ 没有可重做的操作\n");
+        }
+    }
+
+    /**
+     * 把完成超过指定天数的任务移入归档
+     */
+    private void archiveCompleted() {
+        System.out.println("\n--- 归档已完成任务 ---");
+        System.out.print("归档完成超过多少天的任务 (默认30，0表示全部已完成任务，含没有完成时间的旧任务): ");
+        String input = scanner.nextLine().trim();
+        int days = 30;
+        if (!input.isEmpty()) {
+            try {
+                days = Integer.parseInt(input);
+            } catch (NumberFormatException e) {
+                days = -1;
+            }
+            if (days < 0) {
+                System.out.println("✗ 请输入非负整数！\n");
+                return;
+            }
+        }
+
+        int archived = todoService.archiveCompleted(Duration.ofDays(days));
+        System.out.println("✓ 已归档 " + archived + " 个任务\n");
+    }
+
+    /**
+     * 浏览、搜索归档任务，数据从归档文件流式读取
+     */
+    private void browseArchive() {
+        System.out.println("\n--- 查看归档 ---");
+        System.out.println("1. 浏览归档  2. 搜索归档  3. 归档统计");
+        System.out.print("请选择: ");
+        switch (scanner.nextLine().trim()) {
+            case "1":
+                browsePages(pageIndex -> todoService.getArchivedTaskPage(pageIndex, PAGE_SIZE));
+                break;
+            case "2":
+                System.out.print("关键词: ");
+                String keyword = scanner.nextLine().trim();
+                if (keyword.isEmpty()) {
+                    System.out.println("关键词不能为空！\n");
+                    return;
+                }
+                List<Task> results = todoService.searchArchive(keyword, SEARCH_LIMIT);
+                if (results.isEmpty()) {
+                    System.out.println("未找到匹配的归档任务\n");
+                    return;
+                }
+                renderTasks(results, 0);
+                System.out.println();
+                break;
+            case "3":
+                System.out.println(todoService.getArchiveStatistics() + "\n");
+                break;
+            default:
+                System.out.println("无效的选项！\n");
+        }
+    }
+
+    /**
+     * 显示上次查看之后的变更（包括HTTP接口等其他入口的修改）
+     */
+    private void showRecentChanges() {
+        System.out.println("\n--- 最近变更 ---");
+        ChangeFeed.Batch batch = changes.poll(Integer.MAX_VALUE);
+        if (batch.isResyncRequired()) {
+            System.out.println("变更过多，未能全部保留，请重新查看任务列表\n");
+            return;
+        }
+        if (batch.getEvents().isEmpty()) {
+            System.out.println("没有新的变更\n");
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (TaskEvent event : batch.getEvents()) {
+            sb.append(event).append(System.lineSeparator());
+        }
+        out.append(sb);
+        out.flush();
         System.out.println();
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量操作，每次操作只保存一次，可以用“撤销”整体恢复
+     */
+    private void bulkOperations() {
+        System.out.println("\n--- 批量操作 ---");
+        System.out.println("1. 删除所有已完成任务");
+        System.out.println("2. 完成所有已过期任务");
+        System.out.println("3. 完成标题包含关键词的任务");
+        System.out.println("4. 批量设置优先级");
+        System.out.print("请选择: ");
+        switch (scanner.nextLine().trim()) {
+            case "1":
+                int completed = todoService.count(TaskFilter.completed());
+                if (completed == 0) {
+                    System.out.println("没有已完成的任务\n");
+                    return;
+                }
+                System.out.print("确认删除 " + completed + " 个已完成任务? (y/n): ");
+                if (!scanner.nextLine().trim().equalsIgnoreCase("y")) {
+                    System.out.println("已取消\n");
+                    return;
+                }
+                System.out.println("✓ 已删除 " + todoService.deleteCompletedTasks() + " 个任务\n");
+                break;
+            case "2":
+                TaskFilter overdue = TaskFilter.dueBefore(LocalDateTime.now());
+                System.out.println("✓ 已完成 " + todoService.completeWhere(overdue) + " 个任务\n");
+                break;
+            case "3":
+                System.out.print("关键词: ");
+                String keyword = scanner.nextLine().trim();
+                if (keyword.isEmpty()) {
+                    System.out.println("关键词不能为空！\n");
+                    return;
+                }
+                System.out.println("✓ 已完成 " + todoService.completeWhere(TaskFilter.titleContains(keyword)) + " 个任务\n");
+                break;
+            case "4":
+                System.out.print("任务ID (前8位，多个用逗号或空格分隔): ");
+                String ids = scanner.nextLine().trim();
+                if (ids.isEmpty()) {
+                    System.out.println("任务ID不能为空！\n");
+                    return;
+                }
+                System.out.print("优先级 (高/中/低): ");
+                Task.Priority priority = parsePriority(scanner.nextLine().trim());
+                if (priority == null) {
+                    System.out.println("✗ 无效的优先级！\n");
+                    return;
+                }
+                int changed = todoService.setPriority(Arrays.asList(ids.split("[,，\\s]+")), priority);
+                System.out.println("✓ 已修改 " + changed + " 个任务的优先级\n");
+                break;
+            default:
+                System.out.println("无效的选项！\n");
+        }
+    }
+
+    /**
+     * 从CSV或JSON Lines文件导入任务，格式按扩展名判断
+     */
+    private void importTasks() {
+        System.out.println("\n--- 导入任务 ---");
+        System.out.print("文件路径 (.csv 或 .jsonl): ");
+        String input = scanner.nextLine().trim();
+        if (input.isEmpty()) {
+            System.out.println("文件路径不能为空！\n");
+            return;
+        }
+        Path file = Path.of(input);
+        if (!Files.isRegularFile(file)) {
+            System.out.println("✗ 文件不存在: " + file + "\n");
+            return;
+        }
+        try {
+            TransferSummary summary = todoService.importTasks(file, TaskRecordFormat.fromFileName(input),
+                    count -> System.out.println("  已读取 " + count + " 条..."));
+            System.out.println("✓ " + summary + "\n");
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("✗ 导入失败: " + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * 把所有任务导出到CSV或JSON Lines文件，格式按扩展名判断
+     */
+    private void exportTasks() {
+        System.out.println("\n--- 导出任务 ---");
+        System.out.print("文件路径 (.csv 或 .jsonl): ");
+        String input = scanner.nextLine().trim();
+        if (input.isEmpty()) {
+            System.out.println("文件路径不能为空！\n");
+            return;
+        }
+        try {
+            TransferSummary summary = todoService.exportTasks(Path.of(input), TaskRecordFormat.fromFileName(input),
+                    count -> System.out.println("  已写出 " + count + " 条..."));
+            System.out.println("✓ " + summary + "\n");
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("✗ 导出失败: " + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * 设置重复规则：完成或到期后自动生成下一次任务
+     */
+    private void setRecurrence() {
+        System.out.println("\n--- 设置重复规则 ---");
+        System.out.print("请输入任务ID (前8位): ");
+        String id = scanner.nextLine().trim();
+
+        System.out.print("重复规则 (每天/每周/每月/每N天/每N周/每N个月，直接回车取消重复): ");
+        String input = scanner.nextLine().trim();
+
+        Recurrence rule = null;
+        if (!input.isEmpty()) {
+            try {
+                rule = Recurrence.parse(input);
+            } catch (IllegalArgumentException e) {
+                System.out.println("✗ " + e.getMessage() + "\n");
+                return;
+            }
+        }
+
+        if (todoService.setRecurrence(id, rule)) {
+            System.out.println(rule == null ? "✓ 已取消重复！\n" : "✓ 重复规则设置成功: " + rule + "\n");
+        } else {
+            System.out.println("✗ 未找到该任务！\n");
+        }
+    }
+
+    /**
+     * 设置截止时间
+     */
+    private void setDueDate() {
+        System.out.println("\n--- 设置截止时间 ---");
+        System.out.print("请输入任务ID (前8位): ");
+        String id = scanner.nextLine().trim();
+
+        System.out.print("截止时间 (yyyy-MM-dd HH:mm 或 yyyy-MM-dd，直接回车清除): ");
+        String input = scanner.nextLine().trim();
+
+        LocalDateTime dueDate = null;
+        if (!input.isEmpty()) {
+            dueDate = parseDateTime(input, false);
+            if (dueDate == null) {
+                System.out.println("✗ 时间格式不正确！\n");
+                return;
+            }
+        }
+
+        if (todoService.setDueDate(id, dueDate)) {
+            System.out.println("✓ 截止时间设置成功！\n");
+        } else {
+            System.out.println("✗ 未找到该任务！\n");
+        }
+    }
+
+    /**
+     * 列出已过期任务
+     */
+    private void listOverdueTasks() {
+        System.out.println("\n--- 已过期任务 ---");
+        displayTasks(todoService.getOverdueTasks());
+    }
+
+    /**
+     * 列出即将到期的任务
+     */
+    private void listNextDueTasks() {
+        System.out.println("\n--- 即将到期任务 ---");
+        System.out.print("显示数量 (直接回车默认10): ");
+        String input = scanner.nextLine().trim();
+
+        int limit = 10;
+        if (!input.isEmpty()) {
+            try {
+                limit = Integer.parseInt(input);
+            } catch (NumberFormatException e) {
+                System.out.println("✗ 请输入数字！\n");
+                return;
+            }
+        }
+        displayTasks(todoService.getNextDueTasks(limit));
+    }
+
+    /**
+     * 列出截止时间在某个时间段内的任务
+     */
+    private void listTasksDueBetween() {
+        System.out.println("\n--- 按时间段查看任务 ---");
+        System.out.print("开始时间 (yyyy-MM-dd HH:mm 或 yyyy-MM-dd): ");
+        LocalDateTime from = parseDateTime(scanner.nextLine().trim(), false);
+        System.out.print("结束时间 (yyyy-MM-dd HH:mm 或 yyyy-MM-dd): ");
+        LocalDateTime to = parseDateTime(scanner.nextLine().trim(), true);
+
+        if (from == null || to == null) {
+            System.out.println("✗ 时间格式不正确！\n");
+            return;
+        }
+        displayTasks(todoService.getTasksDueBetween(from, to));
+    }
+
+    /**
+     * 搜索任务
+     */
+    private void searchTasks() {
+        System.out.println("\n--- 搜索任务 ---");
+        System.out.print("关键词: ");
+        String query = scanner.nextLine().trim();
+
+        if (query.isEmpty()) {
+            System.out.println("关键词不能为空！\n");
+            return;
+        }
+        displayTasks(todoService.searchTasks(query, SEARCH_LIMIT));
+    }
+
+    /**
+     * 排序/筛选视图：按状态、优先级、标题关键词和截止时间筛选，再按选定的字段排序
+     */
+    private void sortFilterView() {
+        System.out.println("\n--- 排序/筛选视图 ---");
+        System.out.println("状态: 1. 全部  2. 未完成  3. 已完成");
+        System.out.print("请选择 (默认2): ");
+        TaskFilter filter;
+        switch (scanner.nextLine().trim()) {
+            case "1":
+                filter = TaskFilter.all();
+                break;
+            case "3":
+                filter = TaskFilter.completed();
+                break;
+            default:
+                filter = TaskFilter.incomplete();
+        }
+
+        System.out.print("优先级 (高/中/低，多个用逗号分隔，回车表示不限): ");
+        String priorities = scanner.nextLine().trim();
+        if (!priorities.isEmpty()) {
+            List<Task.Priority> selected = new ArrayList<>();
+            for (String name : priorities.split("[,，\\s]+")) {
+                Task.Priority priority = parsePriority(name);
+                if (priority == null) {
+                    System.out.println("✗ 无效的优先级: " + name + "\n");
+                    return;
+                }
+                selected.add(priority);
+            }
+            filter = filter.and(TaskFilter.anyPriority(selected.toArray(new Task.Priority[0])));
+        }
+
+        System.out.print("标题包含 (回车表示不限): ");
+        String keyword = scanner.nextLine().trim();
+        if (!keyword.isEmpty()) {
+            filter = filter.and(TaskFilter.titleContains(keyword));
+        }
+
+        System.out.print("截止时间早于 (yyyy-MM-dd HH:mm 或 yyyy-MM-dd，回车表示不限): ");
+        String dueInput = scanner.nextLine().trim();
+        if (!dueInput.isEmpty()) {
+            LocalDateTime due = parseDateTime(dueInput, true);
+            if (due == null) {
+                System.out.println("✗ 时间格式不正确！\n");
+                return;
+            }
+            filter = filter.and(TaskFilter.dueBefore(due));
+        }
+
+        System.out.println("排序: 1. 紧急程度（优先级→截止时间→创建时间）  2. 截止时间  3. 创建时间（最新在前）  4. 标题");
+        System.out.print("请选择 (默认1): ");
+        TaskQuery query = TaskQuery.where(filter);
+        switch (scanner.nextLine().trim()) {
+            case "2":
+                query.orderBy(TaskQuery.SortKey.DUE_DATE, false);
+                break;
+            case "3":
+                query.orderBy(TaskQuery.SortKey.CREATED_AT, true);
+                break;
+            case "4":
+                query.orderBy(TaskQuery.SortKey.TITLE, false);
+                break;
+            default:
+                query.orderBy(TaskQuery.SortKey.PRIORITY, true)
+                        .thenBy(TaskQuery.SortKey.DUE_DATE, false)
+                        .thenBy(TaskQuery.SortKey.CREATED_AT, false);
+        }
+
+        System.out.print("显示数量 (默认" + PAGE_SIZE + "，0表示全部): ");
+        String limitInput = scanner.nextLine().trim();
+        int limit = PAGE_SIZE;
+        if (!limitInput.isEmpty()) {
+            try {
+                limit = Integer.parseInt(limitInput);
+            } catch (NumberFormatException e) {
+                limit = -1;
+            }
+            if (limit < 0) {
+                System.out.println("✗ 数量必须是非负整数！\n");
+                return;
+            }
+        }
+        query.limit(limit).parallel(true);
+
+        int total = todoService.count(filter);
+        List<Task> tasks = todoService.query(query);
+        System.out.println("共 " + total + " 个任务满足条件，显示 " + tasks.size() + " 个");
+        displayTasks(tasks);
+    }
+
+    private static Task.Priority parsePriority(String name) {
+        switch (name.toLowerCase()) {
+            case "高":
+            case "high":
+                return Task.Priority.HIGH;
+            case "中":
+            case "medium":
+                return Task.Priority.MEDIUM;
+            case "低":
+            case "low":
+                return Task.Priority.LOW;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 解析用户输入的时间，只输入日期时取当天开始或结束时刻，格式不正确返回null
+     */
+    private LocalDateTime parseDateTime(String input, boolean endOfDay) {
+        try {
+            return LocalDateTime.parse(input, DATE_TIME_FORMAT);
+        } catch (DateTimeParseException e) {
+            try {
+                LocalDate date = LocalDate.parse(input);
+                return endOfDay ? date.atTime(23, 59, 59) : date.atStartOfDay();
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,565 @@
+package ui;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import dao.TaskDao;
+import metrics.TodoMetrics;
+import model.Recurrence;
+import model.Task;
+import service.AmbiguousTaskIdException;
+import service.ChangeFeed;
+import service.TaskFilter;
+import service.TaskPage;
+import service.TaskPatch;
+import service.TodoService;
+import service.TodoStoreManager;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HttpApiServer类 - 以JSON HTTP接口提供TodoService的功能
+ *
+ *   GET    /tasks?status=all|incomplete|completed&priority=high&page=0&size=20   分页列出任务
+ *   POST   /tasks                      新建任务 {"title", "description"}
+ *   GET    /tasks/{id}                 查看任务（支持ID前缀）
+ *   PATCH  /tasks/{id}                 修改任务 {"title", "description", "completed", "priority", "dueDate", "recurrence"}
+ *   DELETE /tasks/{id}                 删除任务
+ *   POST   /tasks/{id}/complete        标记完成
+ *   POST   /tasks/{id}/toggle          切换完成状态
+ *   GET    /search?q=关键字&limit=20    全文搜索
+ *   GET    /due?from=...&to=...        按截止时间段查询，缺省时返回已过期任务
+ *   GET    /stats                      统计信息和性能指标
+ *   GET    /changes?since=序号&limit=100&wait=秒   增量变更；不带 since 时返回当前序号作为起点
+ *
+ * recurrence 取值为 DAILY、WEEKLY、MONTHLY、EVERY_3_DAYS 这样的规则，null 表示不再重复。
+ * 只读模式（复制的从节点）只接受GET请求，其他请求返回403
+ * 每个请求在一个虚拟线程中处理，阻塞在锁或磁盘上不会占用平台线程
+ */
+public class HttpApiServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int BACKLOG = 4096;
+    private static final int MAX_CHANGES_WAIT_SECONDS = 30;
+    // JDK HttpServer 默认最多保留200个空闲的长连接，超出的会被关闭
+    private static final String MAX_IDLE_CONNECTIONS = "10000";
+
+    private final TodoService todoService;      // 单清单模式
+    private final TodoStoreManager storeManager;  // 多清单模式
+    private final Gson gson;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean readOnly;
+    private final Map<String, Route> routes = new LinkedHashMap<>();
+
+    public HttpApiServer(TodoService todoService) throws IOException {
+        this(todoService, Integer.getInteger("todo.http.port", DEFAULT_PORT));
+    }
+
+    public HttpApiServer(TodoService todoService, int port) throws IOException {
+        this(todoService, port, false);
+    }
+
+    /**
+     * @param readOnly 是否只提供查询（用于复制的从节点）
+     */
+    public HttpApiServer(TodoService todoService, int port, boolean readOnly) throws IOException {
+        this(todoService, null, port, readOnly);
+    }
+
+    /**
+     * 多清单模式：接口路径前加 /lists/{清单ID}，例如 GET /lists/alice/tasks
+     * 每个请求通过 TodoStoreManager 打开对应的清单，请求处理期间该清单不会被淘汰
+     */
+    public HttpApiServer(TodoStoreManager storeManager, int port) throws IOException {
+        this(null, storeManager, port, false);
+    }
+
+    private HttpApiServer(TodoService todoService, TodoStoreManager storeManager, int port, boolean readOnly)
+            throws IOException {
+        this.todoService = todoService;
+        this.storeManager = storeManager;
+        this.readOnly = readOnly;
+        this.gson = TaskDao.newGsonBuilder().serializeNulls().create();
+
+        // 必须在第一次创建HttpServer之前设置，JDK只在初始化时读取一次
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections", MAX_IDLE_CONNECTIONS);
+        }
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+
+        routes.put("tasks", this::handleTasks);
+        routes.put("search", this::handleSearch);
+        routes.put("due", this::handleDue);
+        routes.put("stats", this::handleStats);
+        routes.put("changes", this::handleChanges);
+        if (storeManager != null) {
+            server.createContext("/lists", handler(this::handleList));
+        } else {
+            for (Map.Entry<String, Route> route : routes.entrySet()) {
+                server.createContext("/" + route.getKey(), handler(route.getValue()));
+            }
+        }
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("[系统] HTTP服务已启动，端口 " + getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * 停止接收新请求，最多等待delaySeconds秒让正在处理的请求完成
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * 请求处理中的错误，带HTTP状态码
+     */
+    private static class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * 一个接口的处理逻辑，返回要序列化的对象，null表示没有响应体
+     * path 为接口名之后的路径，例如 /tasks/abc/complete -> [abc, complete]
+     */
+    private interface Route {
+        Object handle(HttpExchange exchange, TodoService todoService, String[] path) throws IOException;
+    }
+
+    /**
+     * 响应对象：状态码和响应体
+     */
+    private static class Response {
+        final int status;
+        final Object body;
+
+        Response(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    /**
+     * 分页结果的JSON结构
+     */
+    private static class PageBody {
+        final List<Task> tasks;
+        final int page;
+        final int size;
+        final int total;
+        final int totalPages;
+
+        PageBody(TaskPage page) {
+            this.tasks = page.getTasks();
+            this.page = page.getPageIndex();
+            this.size = page.getPageSize();
+            this.total = page.getTotalCount();
+            this.totalPages = page.getTotalPages();
+        }
+    }
+
+    private HttpHandler handler(Route route) {
+        return exchange -> {
+            int status;
+            Object body;
+            try {
+                if (readOnly && !exchange.getRequestMethod().equals("GET")) {
+                    throw new ApiException(403, "只读节点，修改请发送到主节点");
+                }
+                Object result = route.handle(exchange, todoService, subPath(exchange, 1));
+                if (result instanceof Response) {
+                    status = ((Response) result).status;
+                    body = ((Response) result).body;
+                } else {
+                    status = result == null ? 204 : 200;
+                    body = result;
+                }
+            } catch (ApiException e) {
+                status = e.status;
+                body = error(e.getMessage());
+            } catch (AmbiguousTaskIdException e) {
+                status = 409;
+                Map<String, Object> ambiguous = error(e.getMessage());
+                ambiguous.put("candidates", e.getCandidates());
+                body = ambiguous;
+            } catch (JsonParseException | DateTimeParseException | IllegalArgumentException e) {
+                status = 400;
+                body = error("请求格式错误: " + e.getMessage());
+            } catch (UncheckedIOException e) {
+                status = 500;
+                body = error("服务器内部错误: " + e.getCause().getMessage());
+            } catch (RuntimeException e) {
+                status = 500;
+                body = error("服务器内部错误: " + e.getMessage());
+            }
+            send(exchange, status, body);
+        };
+    }
+
+    /**
+     * 多清单模式：/lists/{清单ID}/{接口}/...，在清单打开期间处理请求
+     */
+    private Object handleList(HttpExchange exchange, TodoService ignored, String[] path) {
+        if (path.length < 2 || !routes.containsKey(path[1])) {
+            throw new ApiException(404, "路径应为 /lists/{清单ID}/" + String.join("|", routes.keySet()));
+        }
+        Route route = routes.get(path[1]);
+        String[] rest = Arrays.copyOfRange(path, 2, path.length);
+        return storeManager.withList(path[0], service -> {
+            try {
+                Object result = route.handle(exchange, service, rest);
+                // 响应在清单释放后才序列化，懒加载任务的详情要在这里读出
+                loadDetails(result instanceof Response ? ((Response) result).body : result);
+                return result;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private Object handleTasks(HttpExchange exchange, TodoService todoService, String[] path) {
+        String method = exchange.getRequestMethod();
+
+        if (path.length == 0) {
+            switch (method) {
+                case "GET":
+                    return listTasks(todoService, queryParams(exchange));
+                case "POST":
+                    JsonObject json = readJson(exchange);
+                    String title = getString(json, "title");
+                    if (title == null || title.trim().isEmpty()) {
+                        throw new ApiException(400, "任务标题不能为空");
+                    }
+                    String description = getString(json, "description");
+                    Task task = todoService.addTask(title.trim(), description == null ? "" : description.trim());
+                    return new Response(201, task);
+                default:
+                    throw new ApiException(405, "不支持的方法: " + method);
+            }
+        }
+
+        String id = path[0];
+        if (path.length == 2 && method.equals("POST")) {
+            boolean found;
+            switch (path[1]) {
+                case "complete":
+                    found = todoService.completeTask(id);
+                    break;
+                case "toggle":
+                    found = todoService.toggleTaskStatus(id);
+                    break;
+                default:
+                    throw new ApiException(404, "未知接口: " + path[1]);
+            }
+            return requireFound(todoService, found, id);
+        }
+        if (path.length != 1) {
+            throw new ApiException(404, "未知接口");
+        }
+
+        switch (method) {
+            case "GET":
+                return todoService.findTaskById(id)
+                        .orElseThrow(() -> new ApiException(404, "未找到任务 " + id));
+            case "PATCH":
+                return patchTask(todoService, id, readJson(exchange));
+            case "DELETE":
+                if (!todoService.deleteTask(id)) {
+                    throw new ApiException(404, "未找到任务 " + id);
+                }
+                return null;
+            default:
+                throw new ApiException(405, "不支持的方法: " + method);
+        }
+    }
+
+    private PageBody listTasks(TodoService todoService, Map<String, String> params) {
+        int page = intParam(params, "page", 0);
+        int size = Math.min(intParam(params, "size", DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE);
+        if (page < 0 || size <= 0) {
+            throw new ApiException(400, "page 和 size 必须为正数");
+        }
+        TaskFilter filter;
+        switch (params.getOrDefault("status", "all")) {
+            case "all":
+                filter = TaskFilter.all();
+                break;
+            case "incomplete":
+                filter = TaskFilter.incomplete();
+                break;
+            case "completed":
+                filter = TaskFilter.completed();
+                break;
+            default:
+                throw new ApiException(400, "status 只能是 all、incomplete 或 completed");
+        }
+        if (params.containsKey("priority")) {
+            filter = filter.and(TaskFilter.priority(Task.Priority.valueOf(params.get("priority").toUpperCase())));
+        }
+        return new PageBody(todoService.queryPage(filter, page, size));
+    }
+
+    /**
+     * 只修改请求中出现的字段；dueDate、recurrence 为 null 表示清除
+     * 先检查全部字段，有一个无效就整个请求不做修改；所有字段在一次修改中写入
+     */
+    private Task patchTask(TodoService todoService, String id, JsonObject json) {
+        TaskPatch patch = new TaskPatch();
+        if (json.has("title")) {
+            patch.title(getString(json, "title"));
+        }
+        if (json.has("description")) {
+            patch.description(getString(json, "description"));
+        }
+        if (json.has("completed")) {
+            JsonElement completed = json.get("completed");
+            if (!completed.isJsonPrimitive() || !completed.getAsJsonPrimitive().isBoolean()) {
+                throw new ApiException(400, "completed 必须是 true 或 false");
+            }
+            patch.completed(completed.getAsBoolean());
+        }
+        if (json.has("priority")) {
+            String priority = getString(json, "priority");
+            if (priority == null) {
+                throw new ApiException(400, "priority 不能为 null");
+            }
+            patch.priority(Task.Priority.valueOf(priority.toUpperCase()));
+        }
+        if (json.has("dueDate")) {
+            String dueDate = getString(json, "dueDate");
+            patch.dueDate(dueDate == null ? null : LocalDateTime.parse(dueDate));
+        }
+        if (json.has("recurrence")) {
+            String recurrence = getString(json, "recurrence");
+            patch.recurrence(recurrence == null ? null : Recurrence.parse(recurrence));
+        }
+        return requireFound(todoService, patch.isEmpty() || todoService.patchTask(id, patch), id);
+    }
+
+    private Object handleSearch(HttpExchange exchange, TodoService todoService, String[] path) {
+        requireGet(exchange);
+        Map<String, String> params = queryParams(exchange);
+        String query = params.get("q");
+        if (query == null || query.trim().isEmpty()) {
+            throw new ApiException(400, "缺少参数 q");
+        }
+        return todoService.searchTasks(query, Math.min(intParam(params, "limit", DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE));
+    }
+
+    private Object handleDue(HttpExchange exchange, TodoService todoService, String[] path) {
+        requireGet(exchange);
+        Map<String, String> params = queryParams(exchange);
+        if (!params.containsKey("from") && !params.containsKey("to")) {
+            return todoService.getOverdueTasks();
+        }
+        LocalDateTime from = params.containsKey("from") ? LocalDateTime.parse(params.get("from")) : LocalDateTime.MIN;
+        LocalDateTime to = params.containsKey("to") ? LocalDateTime.parse(params.get("to")) : LocalDateTime.MAX;
+        return todoService.getTasksDueBetween(from, to);
+    }
+
+    private Object handleStats(HttpExchange exchange, TodoService todoService, String[] path) {
+        requireGet(exchange);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tasks", todoService.getStatistics());
+        stats.put("save", todoService.getSaveStatistics());
+        stats.put("metrics", TodoMetrics.getInstance().report());
+        if (storeManager != null) {
+            stats.put("lists", storeManager.getStatistics());
+        }
+        return stats;
+    }
+
+    /**
+     * 增量变更。resync 为 true 时客户端落后太多，需要重新拉取全部任务后从 next 继续
+     * wait 大于0时没有新变更会等待（长轮询），请求运行在虚拟线程上，等待不占用平台线程
+     */
+    private Object handleChanges(HttpExchange exchange, TodoService todoService, String[] path) {
+        requireGet(exchange);
+        Map<String, String> params = queryParams(exchange);
+        ChangeFeed feed = todoService.getChangeFeed();
+        Map<String, Object> body = new LinkedHashMap<>();
+        if (!params.containsKey("since")) {
+            body.put("next", feed.getLatestSequence());
+            body.put("resync", false);
+            body.put("events", List.of());
+            return body;
+        }
+
+        long since;
+        try {
+            since = Long.parseLong(params.get("since"));
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "参数 since 必须是整数");
+        }
+        int limit = Math.min(intParam(params, "limit", DEFAULT_PAGE_SIZE * 5), MAX_PAGE_SIZE);
+        int wait = Math.min(intParam(params, "wait", 0), MAX_CHANGES_WAIT_SECONDS);
+        if (limit <= 0 || wait < 0) {
+            throw new ApiException(400, "limit 必须为正数，wait 不能为负数");
+        }
+
+        ChangeFeed.Batch batch;
+        try {
+            batch = feed.subscribe(since).poll(limit, wait, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(503, "服务正在关闭");
+        }
+        body.put("next", batch.getNextSequence());
+        body.put("resync", batch.isResyncRequired());
+        body.put("events", batch.getEvents());
+        return body;
+    }
+
+    private static Task requireFound(TodoService todoService, boolean found, String id) {
+        Optional<Task> task = found ? todoService.findTaskById(id) : Optional.empty();
+        return task.orElseThrow(() -> new ApiException(404, "未找到任务 " + id));
+    }
+
+    private static void requireGet(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw new ApiException(405, "不支持的方法: " + exchange.getRequestMethod());
+        }
+    }
+
+    /**
+     * 按 / 拆分路径并去掉前skip段，例如 /tasks/abc/complete 去掉1段 -> [abc, complete]
+     */
+    private static String[] subPath(HttpExchange exchange, int skip) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : exchange.getRequestURI().getPath().split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments.subList(Math.min(skip, segments.size()), segments.size()).toArray(new String[0]);
+    }
+
+    private static Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "参数 " + name + " 必须是整数");
+        }
+    }
+
+    /**
+     * 读取JSON请求体。这里不关闭输入流，由 send 读完剩余内容后随交换一起关闭
+     */
+    private JsonObject readJson(HttpExchange exchange) {
+        Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8);
+        JsonObject json = gson.fromJson(reader, JsonObject.class);
+        if (json == null) {
+            throw new ApiException(400, "请求体不能为空");
+        }
+        return json;
+    }
+
+    private static String getString(JsonObject json, String name) {
+        JsonElement element = json.get(name);
+        return element == null || element.isJsonNull() ? null : element.getAsString();
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        return body;
+    }
+
+    /**
+     * 写出响应。始终带上Content-Length，客户端才能复用长连接
+     */
+    private void send(HttpExchange exchange, int status, Object body) throws IOException {
+        try (exchange) {
+            // 读完未读的请求体，否则连接无法复用
+            exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+            if (body == null) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            loadDetails(body);
+            byte[] bytes = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Gson直接读字段，懒加载的任务要先补齐详情
+     */
+    private static void loadDetails(Object body) {
+        if (body instanceof Task) {
+            ((Task) body).loadDetails();
+        } else if (body instanceof PageBody) {
+            ((PageBody) body).tasks.forEach(Task::loadDetails);
+        } else if (body instanceof List) {
+            for (Object item : (List<?>) body) {
+                if (item instanceof Task) {
+                    ((Task) item).loadDetails();
+                }
+            }
+        }
+    }
+}